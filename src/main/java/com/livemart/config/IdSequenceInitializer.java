@@ -0,0 +1,51 @@
+package com.livemart.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Entities used to get IDENTITY ids. On a database created before the switch to pooled
+// sequences, the new sequences start at 1 and would hand out ids that already exist, so each
+// one is moved past the highest id in its table before the application takes any writes.
+@Component
+public class IdSequenceInitializer implements InitializingBean {
+    
+    // Must match allocationSize on the entities' @SequenceGenerator
+    public static final int ALLOCATION_SIZE = 50;
+    
+    private static final Map<String, String> SEQUENCES = Map.of(
+        "users", "users_seq",
+        "products", "products_seq",
+        "carts", "carts_seq",
+        "cart_items", "cart_items_seq",
+        "orders", "orders_seq",
+        "order_items", "order_items_seq",
+        "notifications", "notifications_seq",
+        "feedbacks", "feedbacks_seq"
+    );
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // The EntityManagerFactory is only taken so the schema (and its sequences) exists first
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCES.forEach((table, sequence) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            Long nextValue = jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE UPPER(SEQUENCE_NAME) = UPPER(?)",
+                Long.class, sequence);
+            // The pooled optimizer treats each value it reads as the top of a block of ALLOCATION_SIZE ids
+            long safeValue = maxId + ALLOCATION_SIZE;
+            if (maxId > 0 && nextValue != null && nextValue < safeValue) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + safeValue);
+            }
+        });
+    }
+}
@@ -66,6 +66,7 @@ public class SecurityConfig {
                 .requestMatchers(new AntPathRequestMatcher("/customer/**")).hasAuthority("CUSTOMER")
                 .requestMatchers(new AntPathRequestMatcher("/retailer/**")).hasAuthority("RETAILER")
                 .requestMatchers(new AntPathRequestMatcher("/wholesaler/**")).hasAuthority("WHOLESALER")
+                .requestMatchers(new AntPathRequestMatcher("/metrics/**")).hasAuthority("ADMIN")
                 .anyRequest().authenticated()
             )
             .formLogin(form -> form
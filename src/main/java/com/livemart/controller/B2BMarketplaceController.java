@@ -1,7 +1,10 @@
 package com.livemart.controller;
 
 import com.livemart.model.*;
+import com.livemart.repository.MarketplaceListing;
 import com.livemart.service.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -9,20 +12,24 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/retailer/marketplace")
 public class B2BMarketplaceController {
     
+    private static final int PAGE_SIZE = 24;
+    
     private final UserService userService;
     private final ProductService productService;
     private final OrderService orderService;
+    private final CheckoutAdmissionService checkoutAdmissionService;
     
-    public B2BMarketplaceController(UserService userService, ProductService productService, OrderService orderService) {
+    public B2BMarketplaceController(UserService userService, ProductService productService, OrderService orderService,
+                                    CheckoutAdmissionService checkoutAdmissionService) {
         this.userService = userService;
         this.productService = productService;
         this.orderService = orderService;
+        this.checkoutAdmissionService = checkoutAdmissionService;
     }
     
     // Helper method to check if user is a retailer
@@ -33,6 +40,7 @@ public class B2BMarketplaceController {
     @GetMapping
     public String viewMarketplace(@RequestParam(required = false) String category, 
                                  @RequestParam(required = false) String search,
+                                 @RequestParam(defaultValue = "0") int page,
                                  Authentication auth, Model model) {
         User retailer = userService.findByEmail(auth.getName());
         
@@ -41,26 +49,14 @@ public class B2BMarketplaceController {
             return "redirect:/dashboard";
         }
         
-        // Get all wholesaler products (exclude retailer's own products)
-        List<Product> wholesalerProducts = productService.getAllProducts().stream()
-            .filter(p -> p.getSeller().getRole() == UserRole.WHOLESALER)
-            .filter(p -> !p.getSeller().getId().equals(retailer.getId()))
-            .filter(p -> p.getAvailable() && p.getStockQuantity() > 0)
-            .collect(Collectors.toList());
-        
-        if (search != null && !search.isEmpty()) {
-            wholesalerProducts = wholesalerProducts.stream()
-                .filter(p -> p.getName().toLowerCase().contains(search.toLowerCase()) ||
-                           p.getDescription().toLowerCase().contains(search.toLowerCase()))
-                .collect(Collectors.toList());
-        } else if (category != null && !category.isEmpty()) {
-            wholesalerProducts = wholesalerProducts.stream()
-                .filter(p -> p.getCategory().equals(category))
-                .collect(Collectors.toList());
-        }
+        Slice<MarketplaceListing> listings = productService.getMarketplaceListings(retailer, search, category,
+            PageRequest.of(Math.max(page, 0), PAGE_SIZE));
         
-        model.addAttribute("products", wholesalerProducts);
+        model.addAttribute("products", listings.getContent());
+        model.addAttribute("listings", listings);
         model.addAttribute("categories", productService.getAllCategories());
+        model.addAttribute("search", search);
+        model.addAttribute("selectedCategory", category);
         model.addAttribute("user", retailer);
         return "retailer/marketplace";
     }
@@ -110,7 +106,8 @@ public class B2BMarketplaceController {
             }
             
             // Create B2B order
-            Order order = orderService.createB2BOrder(retailer, product, quantity, specialInstructions);
+            Order order = checkoutAdmissionService.admit(List.of(productId), () ->
+                orderService.createB2BOrder(retailer, product, quantity, specialInstructions));
             
             redirectAttributes.addFlashAttribute("success", 
                 "Order placed successfully! Order Number: " + order.getOrderNumber());
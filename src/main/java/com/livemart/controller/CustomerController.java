@@ -1,7 +1,16 @@
 package com.livemart.controller;
 
 import com.livemart.model.*;
+import com.livemart.repository.OrderSummary;
+import com.livemart.repository.SeekCursor;
+import com.livemart.repository.SeekPage;
+import com.livemart.search.ProductSuggestionIndex;
 import com.livemart.service.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -9,28 +18,42 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/customer")
 public class CustomerController {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final UserService userService;
     private final ProductService productService;
     private final CartService cartService;
     private final OrderService orderService;
     private final FeedbackService feedbackService;
     private final NotificationService notificationService;
+    private final IdempotencyService idempotencyService;
+    private final CheckoutAdmissionService checkoutAdmissionService;
+    private final DeliverySlotService deliverySlotService;
     
     public CustomerController(UserService userService, ProductService productService,
                             CartService cartService, OrderService orderService,
-                            FeedbackService feedbackService, NotificationService notificationService) {
+                            FeedbackService feedbackService, NotificationService notificationService,
+                            IdempotencyService idempotencyService, CheckoutAdmissionService checkoutAdmissionService,
+                            DeliverySlotService deliverySlotService) {
         this.userService = userService;
         this.productService = productService;
         this.cartService = cartService;
         this.orderService = orderService;
         this.feedbackService = feedbackService;
         this.notificationService = notificationService;
+        this.idempotencyService = idempotencyService;
+        this.checkoutAdmissionService = checkoutAdmissionService;
+        this.deliverySlotService = deliverySlotService;
     }
     
     @GetMapping("/products")
@@ -39,9 +62,12 @@ public class CustomerController {
                               @RequestParam(required = false) String minPrice,
                               @RequestParam(required = false) String maxPrice,
                               @RequestParam(required = false) Boolean inStock,
+                              @RequestParam(required = false) String sort,
+                              @RequestParam(required = false) String after,
+                              @RequestParam(defaultValue = "0") int page,
+                              @RequestParam(defaultValue = "24") int size,
                               Authentication auth, Model model) {
         User user = userService.findByEmail(auth.getName());
-        List<Product> products;
         
         // Convert string prices to Double
         Double minPriceValue = null;
@@ -67,26 +93,69 @@ public class CustomerController {
         if (category != null && category.isEmpty()) {
             category = null;
         }
+        if (search != null && search.isEmpty()) {
+            search = null;
+        }
         
-        if (search != null && !search.isEmpty()) {
-            products = productService.searchProducts(search);
-        } else if (category != null || minPriceValue != null || maxPriceValue != null || inStock != null) {
-            products = productService.filterProducts(category, minPriceValue, maxPriceValue, inStock);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        if (search == null && (sort == null || sort.isEmpty() || sort.equals("newest"))) {
+            // Default newest-first listing uses keyset paging
+            SeekPage<Product> productPage = productService.filterProducts(category, minPriceValue, maxPriceValue,
+                inStock, SeekCursor.decode(after), pageSize);
+            model.addAttribute("products", productPage.getContent());
+            model.addAttribute("nextCursor", productPage.getNextCursor());
+            model.addAttribute("after", after);
         } else {
-            products = productService.getAvailableProducts();
+            Pageable pageable = PageRequest.of(Math.max(page, 0), pageSize, resolveProductSort(sort, search != null));
+            Page<Product> productPage = productService.filterProducts(search, category, minPriceValue, maxPriceValue,
+                inStock, pageable);
+            model.addAttribute("productPage", productPage);
+            model.addAttribute("products", productPage.getContent());
         }
-        
-        model.addAttribute("products", products);
         model.addAttribute("categories", productService.getAllCategories());
+        model.addAttribute("facets", productService.getFacetCounts(search, category, minPriceValue, maxPriceValue, inStock));
+        model.addAttribute("search", search);
         model.addAttribute("selectedCategory", category);
         model.addAttribute("minPrice", minPrice);
         model.addAttribute("maxPrice", maxPrice);
         model.addAttribute("inStock", inStock);
+        model.addAttribute("sort", sort);
         model.addAttribute("user", user);
         model.addAttribute("unreadCount", notificationService.getUnreadCount(user));
         return "customer/products";
     }
     
+    private Sort resolveProductSort(String sort, boolean searching) {
+        if (sort == null || sort.isEmpty()) {
+            // Keyword searches default to relevance order
+            return searching ? Sort.unsorted() : Sort.by(Sort.Direction.DESC, "createdAt", "id");
+        }
+        switch (sort) {
+            case "price_asc":
+                return Sort.by(Sort.Direction.ASC, "price").and(Sort.by(Sort.Direction.DESC, "id"));
+            case "price_desc":
+                return Sort.by(Sort.Direction.DESC, "price", "id");
+            case "name":
+                return Sort.by(Sort.Direction.ASC, "name").and(Sort.by(Sort.Direction.DESC, "id"));
+            default:
+                return Sort.by(Sort.Direction.DESC, "createdAt", "id");
+        }
+    }
+    
+    @GetMapping("/products/suggest")
+    @ResponseBody
+    public ResponseEntity<List<Map<String, String>>> suggestProducts(@RequestParam(defaultValue = "") String q) {
+        ProductSuggestionIndex.Suggestion[] suggestions = productService.suggestProducts(q);
+        List<Map<String, String>> response = new ArrayList<>(suggestions.length);
+        for (ProductSuggestionIndex.Suggestion suggestion : suggestions) {
+            Map<String, String> item = new HashMap<>();
+            item.put("text", suggestion.getText());
+            item.put("type", suggestion.isCategory() ? "category" : "product");
+            response.add(item);
+        }
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/product/{id}")
     public String viewProductDetails(@PathVariable Long id, Authentication auth, Model model) {
         User user = userService.findByEmail(auth.getName());
@@ -185,8 +254,12 @@ public class CustomerController {
         }
         
         model.addAttribute("cart", cart);
+        model.addAttribute("deliverySlots",
+            deliverySlotService.getAvailableSlots(cartService.getCartSellerIds(user), user.getPincode()));
         model.addAttribute("user", user);
         model.addAttribute("unreadCount", notificationService.getUnreadCount(user));
+        // Sent back with the order form, so a double submit places the order only once
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         return "customer/checkout";
     }
     
@@ -194,13 +267,16 @@ public class CustomerController {
     public String placeOrder(@RequestParam String paymentMethod,
                             @RequestParam(required = false) String specialInstructions,
                             @RequestParam String deliveryDate,
+                            @RequestParam(required = false) String idempotencyKey,
                             Authentication auth,
                             RedirectAttributes redirectAttributes) {
         try {
             User user = userService.findByEmail(auth.getName());
             PaymentMethod method = PaymentMethod.valueOf(paymentMethod);
             LocalDate preferredDeliveryDate = LocalDate.parse(deliveryDate);
-            Order order = orderService.createOrder(user, method, specialInstructions, preferredDeliveryDate);
+            Order order = checkoutAdmissionService.admit(cartService.getCartProductIds(user), () ->
+                idempotencyService.placeOnce(idempotencyKey, user,
+                    key -> orderService.createOrder(user, method, specialInstructions, preferredDeliveryDate, key)));
             redirectAttributes.addFlashAttribute("success", "Order placed successfully! Order #" + order.getOrderNumber() + ". Expected delivery: " + preferredDeliveryDate);
             return "redirect:/customer/orders";
         } catch (Exception e) {
@@ -212,7 +288,7 @@ public class CustomerController {
     @GetMapping("/orders")
     public String viewOrders(Authentication auth, Model model) {
         User user = userService.findByEmail(auth.getName());
-        List<Order> orders = orderService.getUserOrders(user);
+        List<OrderSummary> orders = orderService.getUserOrderSummaries(user);
         
         model.addAttribute("orders", orders);
         model.addAttribute("user", user);
@@ -224,9 +300,9 @@ public class CustomerController {
     public String viewOrderDetails(@PathVariable Long id, Authentication auth, Model model, RedirectAttributes redirectAttributes) {
         User user = userService.findByEmail(auth.getName());
         try {
-            Order order = orderService.getOrderById(id);
+            OrderSummary order = orderService.getOrderSummary(id);
             
-            if (!order.getUser().getId().equals(user.getId())) {
+            if (!order.getUserId().equals(user.getId())) {
                 redirectAttributes.addFlashAttribute("error", "Unauthorized access!");
                 return "redirect:/customer/orders";
             }
@@ -11,16 +11,19 @@ import org.springframework.web.bind.annotation.GetMapping;
 @Controller
 public class DashboardController {
     
+    private static final int DASHBOARD_PRODUCT_COUNT = 6;
+    
     private final UserService userService;
     private final ProductService productService;
-    private final OrderService orderService;
     private final CartService cartService;
+    private final DashboardService dashboardService;
     
-    public DashboardController(UserService userService, ProductService productService, OrderService orderService, CartService cartService) {
+    public DashboardController(UserService userService, ProductService productService, CartService cartService,
+                               DashboardService dashboardService) {
         this.userService = userService;
         this.productService = productService;
-        this.orderService = orderService;
         this.cartService = cartService;
+        this.dashboardService = dashboardService;
     }
     
     @GetMapping("/dashboard")
@@ -54,22 +57,20 @@ public class DashboardController {
     }
     
     private String showCustomerDashboard(User user, Model model) {
-        model.addAttribute("products", productService.getAvailableProducts());
+        model.addAttribute("products", productService.getNewestAvailableProducts(DASHBOARD_PRODUCT_COUNT));
         model.addAttribute("categories", productService.getAllCategories());
         model.addAttribute("cart", cartService.getOrCreateCart(user));
-        model.addAttribute("recentOrders", orderService.getUserOrders(user));
+        model.addAttribute("dashboard", dashboardService.getCustomerDashboard(user));
         return "customer/dashboard";
     }
     
     private String showRetailerDashboard(User user, Model model) {
-        model.addAttribute("myProducts", productService.getProductsBySeller(user));
-        model.addAttribute("orders", orderService.getAllOrders());
+        model.addAttribute("dashboard", dashboardService.getSellerDashboard(user));
         return "retailer/dashboard";
     }
     
     private String showWholesalerDashboard(User user, Model model) {
-        model.addAttribute("myProducts", productService.getProductsBySeller(user));
-        model.addAttribute("orders", orderService.getAllOrders());
+        model.addAttribute("dashboard", dashboardService.getSellerDashboard(user));
         return "wholesaler/dashboard";
     }
 }
@@ -0,0 +1,65 @@
+package com.livemart.controller;
+
+import com.livemart.service.CheckoutAdmissionService;
+import com.livemart.service.DashboardService;
+import com.livemart.service.OutboxService;
+import com.livemart.service.ProductService;
+import com.livemart.service.SalesRollupService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+@Controller
+@RequestMapping("/metrics")
+public class MetricsController {
+    
+    private final ProductService productService;
+    private final OutboxService outboxService;
+    private final SalesRollupService salesRollupService;
+    private final DashboardService dashboardService;
+    private final CheckoutAdmissionService checkoutAdmissionService;
+    
+    public MetricsController(ProductService productService, OutboxService outboxService,
+                             SalesRollupService salesRollupService, DashboardService dashboardService,
+                             CheckoutAdmissionService checkoutAdmissionService) {
+        this.productService = productService;
+        this.outboxService = outboxService;
+        this.salesRollupService = salesRollupService;
+        this.dashboardService = dashboardService;
+        this.checkoutAdmissionService = checkoutAdmissionService;
+    }
+    
+    @GetMapping("/product-cache")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> productCache() {
+        return ResponseEntity.ok(productService.getProductCacheStats());
+    }
+    
+    @GetMapping("/outbox")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> outbox() {
+        return ResponseEntity.ok(outboxService.getStats());
+    }
+    
+    @GetMapping("/sales-rollups")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> salesRollups() {
+        return ResponseEntity.ok(salesRollupService.getStats());
+    }
+    
+    @GetMapping("/dashboard-cache")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> dashboardCache() {
+        return ResponseEntity.ok(dashboardService.getStats());
+    }
+    
+    @GetMapping("/flash-sale")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> flashSale() {
+        return ResponseEntity.ok(checkoutAdmissionService.getStats());
+    }
+}
@@ -1,7 +1,10 @@
 package com.livemart.controller;
 
 import com.livemart.model.User;
+import com.livemart.service.CartService;
+import com.livemart.service.CheckoutAdmissionService;
 import com.livemart.service.DemoPaymentService;
+import com.livemart.service.IdempotencyService;
 import com.livemart.service.OrderService;
 import com.livemart.service.UserService;
 import org.springframework.http.ResponseEntity;
@@ -20,11 +23,19 @@ public class PaymentController {
     private final DemoPaymentService paymentService;
     private final OrderService orderService;
     private final UserService userService;
+    private final IdempotencyService idempotencyService;
+    private final CartService cartService;
+    private final CheckoutAdmissionService checkoutAdmissionService;
     
-    public PaymentController(DemoPaymentService paymentService, OrderService orderService, UserService userService) {
+    public PaymentController(DemoPaymentService paymentService, OrderService orderService, UserService userService,
+                             IdempotencyService idempotencyService, CartService cartService,
+                             CheckoutAdmissionService checkoutAdmissionService) {
         this.paymentService = paymentService;
         this.orderService = orderService;
         this.userService = userService;
+        this.idempotencyService = idempotencyService;
+        this.cartService = cartService;
+        this.checkoutAdmissionService = checkoutAdmissionService;
     }
     
     @PostMapping("/create-order")
@@ -67,12 +78,16 @@ public class PaymentController {
                 User user = userService.findByEmail(auth.getName());
                 LocalDate deliveryDate = LocalDate.parse(deliveryDateStr);
                 
-                com.livemart.model.Order placedOrder = orderService.createOrder(
-                    user, 
-                    com.livemart.model.PaymentMethod.ONLINE, 
-                    specialInstructions,
-                    deliveryDate
-                );
+                // A retried verification for the same payment order returns the order it already created
+                com.livemart.model.Order placedOrder = checkoutAdmissionService.admit(cartService.getCartProductIds(user), () ->
+                    idempotencyService.placeOnce("payment:" + orderId, user,
+                        key -> orderService.createOrder(
+                            user, 
+                            com.livemart.model.PaymentMethod.ONLINE, 
+                            specialInstructions,
+                            deliveryDate,
+                            key
+                        )));
                 
                 response.put("success", true);
                 response.put("orderNumber", placedOrder.getOrderNumber());
@@ -1,6 +1,8 @@
 package com.livemart.controller;
 
 import com.livemart.model.*;
+import com.livemart.repository.SeekCursor;
+import com.livemart.repository.SeekPage;
 import com.livemart.service.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -12,6 +14,8 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 @RequestMapping("/retailer")
 public class RetailerController {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final UserService userService;
     private final ProductService productService;
     private final OrderService orderService;
@@ -26,10 +30,17 @@ public class RetailerController {
     }
     
     @GetMapping("/products")
-    public String viewMyProducts(Authentication auth, Model model) {
+    public String viewMyProducts(@RequestParam(required = false) String after,
+                                @RequestParam(defaultValue = "20") int size,
+                                Authentication auth, Model model) {
         try {
             User user = userService.findByEmail(auth.getName());
-            model.addAttribute("products", productService.getProductsBySeller(user));
+            SeekPage<Product> productPage = productService.getProductsBySeller(user, SeekCursor.decode(after),
+                Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+            model.addAttribute("products", productPage.getContent());
+            model.addAttribute("nextCursor", productPage.getNextCursor());
+            model.addAttribute("after", after);
+            model.addAttribute("productCount", productService.countProductsBySeller(user));
             model.addAttribute("user", user);
             model.addAttribute("unreadCount", notificationService.getUnreadCount(user));
             return "retailer/products";
@@ -187,9 +198,18 @@ public class RetailerController {
     }
     
     @GetMapping("/orders")
-    public String viewOrders(Authentication auth, Model model) {
+    public String viewOrders(@RequestParam(required = false) OrderStatus status,
+                            @RequestParam(required = false) String after,
+                            @RequestParam(defaultValue = "20") int size,
+                            Authentication auth, Model model) {
         User user = userService.findByEmail(auth.getName());
-        model.addAttribute("orders", orderService.getAllOrders());
+        SeekPage<Order> orderPage = orderService.getSellerOrders(user, status, SeekCursor.decode(after),
+            Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        model.addAttribute("orders", orderPage.getContent());
+        model.addAttribute("nextCursor", orderPage.getNextCursor());
+        model.addAttribute("after", after);
+        model.addAttribute("selectedStatus", status);
+        model.addAttribute("statuses", OrderStatus.values());
         model.addAttribute("user", user);
         model.addAttribute("unreadCount", notificationService.getUnreadCount(user));
         return "retailer/orders";
@@ -198,9 +218,11 @@ public class RetailerController {
     @PostMapping("/order/update-status")
     public String updateOrderStatus(@RequestParam Long orderId,
                                    @RequestParam OrderStatus status,
+                                   Authentication auth,
                                    RedirectAttributes redirectAttributes) {
         try {
-            orderService.updateOrderStatus(orderId, status);
+            User user = userService.findByEmail(auth.getName());
+            orderService.updateOrderStatus(user, orderId, status);
             redirectAttributes.addFlashAttribute("success", "Order status updated!");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
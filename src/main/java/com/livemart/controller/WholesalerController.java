@@ -1,35 +1,50 @@
 package com.livemart.controller;
 
 import com.livemart.model.*;
+import com.livemart.repository.SeekCursor;
+import com.livemart.repository.SeekPage;
 import com.livemart.service.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 @Controller
 @RequestMapping("/wholesaler")
 public class WholesalerController {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final UserService userService;
     private final ProductService productService;
     private final OrderService orderService;
     private final NotificationService notificationService;
+    private final ProductImportService productImportService;
     
     public WholesalerController(UserService userService, ProductService productService, 
-                              OrderService orderService, NotificationService notificationService) {
+                              OrderService orderService, NotificationService notificationService,
+                              ProductImportService productImportService) {
         this.userService = userService;
         this.productService = productService;
         this.orderService = orderService;
         this.notificationService = notificationService;
+        this.productImportService = productImportService;
     }
     
     @GetMapping("/products")
-    public String viewMyProducts(Authentication auth, Model model) {
+    public String viewMyProducts(@RequestParam(required = false) String after,
+                                @RequestParam(defaultValue = "20") int size,
+                                Authentication auth, Model model) {
         try {
             User user = userService.findByEmail(auth.getName());
-            model.addAttribute("products", productService.getProductsBySeller(user));
+            SeekPage<Product> productPage = productService.getProductsBySeller(user, SeekCursor.decode(after),
+                Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+            model.addAttribute("products", productPage.getContent());
+            model.addAttribute("nextCursor", productPage.getNextCursor());
+            model.addAttribute("after", after);
+            model.addAttribute("productCount", productService.countProductsBySeller(user));
             model.addAttribute("user", user);
             model.addAttribute("unreadCount", notificationService.getUnreadCount(user));
             return "wholesaler/products";
@@ -86,6 +101,31 @@ public class WholesalerController {
         return "redirect:/wholesaler/products";
     }
     
+    @PostMapping("/products/import")
+    public String importProducts(@RequestParam("file") MultipartFile file,
+                                Authentication auth,
+                                RedirectAttributes redirectAttributes) {
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Please choose a CSV or JSON lines file to import");
+            return "redirect:/wholesaler/products";
+        }
+        try {
+            User user = userService.findByEmail(auth.getName());
+            ProductImportService.ImportResult result =
+                productImportService.importProducts(user, file.getOriginalFilename(), file.getInputStream());
+            redirectAttributes.addFlashAttribute("success",
+                "Imported " + result.getImported() + " products" +
+                (result.getFailed() > 0 ? ", skipped " + result.getFailed() + " invalid rows" : ""));
+            if (!result.getErrors().isEmpty()) {
+                redirectAttributes.addFlashAttribute("importErrors", result.getErrors());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            redirectAttributes.addFlashAttribute("error", "Import failed: " + e.getMessage());
+        }
+        return "redirect:/wholesaler/products";
+    }
+    
     @GetMapping("/product/edit/{id}")
     public String showEditProductForm(@PathVariable Long id, Authentication auth, Model model, RedirectAttributes redirectAttributes) {
         try {
@@ -187,9 +227,18 @@ public class WholesalerController {
     }
     
     @GetMapping("/orders")
-    public String viewOrders(Authentication auth, Model model) {
+    public String viewOrders(@RequestParam(required = false) OrderStatus status,
+                            @RequestParam(required = false) String after,
+                            @RequestParam(defaultValue = "20") int size,
+                            Authentication auth, Model model) {
         User user = userService.findByEmail(auth.getName());
-        model.addAttribute("orders", orderService.getAllOrders());
+        SeekPage<Order> orderPage = orderService.getSellerOrders(user, status, SeekCursor.decode(after),
+            Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        model.addAttribute("orders", orderPage.getContent());
+        model.addAttribute("nextCursor", orderPage.getNextCursor());
+        model.addAttribute("after", after);
+        model.addAttribute("selectedStatus", status);
+        model.addAttribute("statuses", OrderStatus.values());
         model.addAttribute("user", user);
         model.addAttribute("unreadCount", notificationService.getUnreadCount(user));
         return "wholesaler/orders";
@@ -198,9 +247,11 @@ public class WholesalerController {
     @PostMapping("/order/update-status")
     public String updateOrderStatus(@RequestParam Long orderId,
                                    @RequestParam OrderStatus status,
+                                   Authentication auth,
                                    RedirectAttributes redirectAttributes) {
         try {
-            orderService.updateOrderStatus(orderId, status);
+            User user = userService.findByEmail(auth.getName());
+            orderService.updateOrderStatus(user, orderId, status);
             redirectAttributes.addFlashAttribute("success", "Order status updated!");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
@@ -0,0 +1,85 @@
+package com.livemart.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// How many orders one seller has booked for delivery on one day, either overall (pincode null) or
+// to one pincode. Written back from memory by DeliverySlotService; capacity can be edited per row.
+@Entity
+@Table(name = "delivery_slots", indexes = {
+    @Index(name = "idx_delivery_slots_seller_date", columnList = "seller_id, slot_date")
+})
+public class DeliverySlot {
+    
+    // sellerId:date:pincode, with * as the pincode of the whole-day rows
+    @Id
+    @Column(name = "slot_key", length = 100)
+    private String key;
+    
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+    
+    @Column(name = "slot_date", nullable = false)
+    private LocalDate date;
+    
+    @Column(length = 20)
+    private String pincode;
+    
+    @Column(nullable = false)
+    private Integer capacity;
+    
+    @Column(nullable = false)
+    private Integer booked;
+    
+    public DeliverySlot() {
+    }
+    
+    // Getters and Setters
+    public String getKey() {
+        return key;
+    }
+    
+    public void setKey(String key) {
+        this.key = key;
+    }
+    
+    public Long getSellerId() {
+        return sellerId;
+    }
+    
+    public void setSellerId(Long sellerId) {
+        this.sellerId = sellerId;
+    }
+    
+    public LocalDate getDate() {
+        return date;
+    }
+    
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+    
+    public String getPincode() {
+        return pincode;
+    }
+    
+    public void setPincode(String pincode) {
+        this.pincode = pincode;
+    }
+    
+    public Integer getCapacity() {
+        return capacity;
+    }
+    
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+    
+    public Integer getBooked() {
+        return booked;
+    }
+    
+    public void setBooked(Integer booked) {
+        this.booked = booked;
+    }
+}
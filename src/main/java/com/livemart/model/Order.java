@@ -1,17 +1,22 @@
 package com.livemart.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_created", columnList = "created_at, id"),
+    @Index(name = "idx_orders_user_created", columnList = "user_id, created_at")
+})
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false)
@@ -41,7 +46,7 @@ public class Order {
     @Column(length = 1000)
     private String specialInstructions;
     
-    @Column(nullable = false)
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
     private LocalDateTime updatedAt;
@@ -49,6 +54,16 @@ public class Order {
     @Column(name = "delivery_date")
     private LocalDate deliveryDate;
     
+    // The buyer's pincode when the order was placed, which its delivery slot was booked against
+    @Column(name = "delivery_pincode", length = 20)
+    private String deliveryPincode;
+    
+    // Status updates check this instead of locking the row; the default covers rows from before it existed
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+    
     // Constructors
     public Order() {
         this.createdAt = LocalDateTime.now();
@@ -154,4 +169,16 @@ public class Order {
     public void setDeliveryDate(LocalDate deliveryDate) {
         this.deliveryDate = deliveryDate;
     }
+    
+    public String getDeliveryPincode() {
+        return deliveryPincode;
+    }
+    
+    public void setDeliveryPincode(String deliveryPincode) {
+        this.deliveryPincode = deliveryPincode;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
 }
@@ -1,5 +1,7 @@
 package com.livemart.model;
 
+import java.util.List;
+
 public enum OrderStatus {
     PENDING,
     CONFIRMED,
@@ -7,5 +9,21 @@ public enum OrderStatus {
     SHIPPED,
     OUT_FOR_DELIVERY,
     DELIVERED,
-    CANCELLED
+    CANCELLED;
+    
+    // Orders move forward one step at a time and can be cancelled until they ship
+    public List<OrderStatus> getNextStatuses() {
+        return switch (this) {
+            case PENDING -> List.of(CONFIRMED, CANCELLED);
+            case CONFIRMED -> List.of(PROCESSING, CANCELLED);
+            case PROCESSING -> List.of(SHIPPED, CANCELLED);
+            case SHIPPED -> List.of(OUT_FOR_DELIVERY);
+            case OUT_FOR_DELIVERY -> List.of(DELIVERED);
+            case DELIVERED, CANCELLED -> List.of();
+        };
+    }
+    
+    public boolean canTransitionTo(OrderStatus next) {
+        return getNextStatuses().contains(next);
+    }
 }
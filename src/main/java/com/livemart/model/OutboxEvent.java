@@ -0,0 +1,117 @@
+package com.livemart.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A side effect recorded in the same transaction as the change that caused it, and carried out
+// later by OutboxService's dispatcher. Rows stay until dispatched, so delivery is at least once.
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_pending", columnList = "dispatched_at, id")
+})
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recipient_id", nullable = false)
+    private User recipient;
+    
+    @Column(nullable = false)
+    private String title;
+    
+    @Column(length = 500)
+    private String message;
+    
+    @Enumerated(EnumType.STRING)
+    private NotificationType type;
+    
+    @Column(name = "related_order_id")
+    private Long relatedOrderId;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "dispatched_at")
+    private LocalDateTime dispatchedAt;
+    
+    public OutboxEvent() {
+    }
+    
+    public OutboxEvent(User recipient, String title, String message, NotificationType type, Long relatedOrderId) {
+        this.recipient = recipient;
+        this.title = title;
+        this.message = message;
+        this.type = type;
+        this.relatedOrderId = relatedOrderId;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public User getRecipient() {
+        return recipient;
+    }
+    
+    public void setRecipient(User recipient) {
+        this.recipient = recipient;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public NotificationType getType() {
+        return type;
+    }
+    
+    public void setType(NotificationType type) {
+        this.type = type;
+    }
+    
+    public Long getRelatedOrderId() {
+        return relatedOrderId;
+    }
+    
+    public void setRelatedOrderId(Long relatedOrderId) {
+        this.relatedOrderId = relatedOrderId;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getDispatchedAt() {
+        return dispatchedAt;
+    }
+    
+    public void setDispatchedAt(LocalDateTime dispatchedAt) {
+        this.dispatchedAt = dispatchedAt;
+    }
+}
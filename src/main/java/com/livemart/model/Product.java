@@ -4,11 +4,17 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_available_category", columnList = "available, category"),
+    @Index(name = "idx_products_price", columnList = "price"),
+    @Index(name = "idx_products_available_created", columnList = "available, created_at, id"),
+    @Index(name = "idx_products_seller_created", columnList = "seller_id, created_at, id")
+})
 public class Product {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -23,7 +29,9 @@ public class Product {
     @Column(nullable = false)
     private Double price;
     
-    @Column(name = "stock_quantity")
+    // Left out of entity updates, so saving an edited product can't undo a concurrent decrement;
+    // stock only changes through ProductRepository's stock updates and the inventory ledger
+    @Column(name = "stock_quantity", updatable = false)
     private Integer stockQuantity;
     
     @Column(name = "image_url")
@@ -0,0 +1,97 @@
+package com.livemart.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// Running sales figures for one seller and order status, either for one day (bucketed by the day the
+// order was placed) or, when day is null, for all time. Maintained by SalesRollupService.
+@Entity
+@Table(name = "seller_sales_rollups", indexes = {
+    @Index(name = "idx_seller_sales_rollups_seller_day", columnList = "seller_id, sales_day")
+})
+public class SellerSalesRollup {
+    
+    // sellerId:day:status, with * as the day of the all-time rows
+    @Id
+    @Column(name = "rollup_key", length = 100)
+    private String key;
+    
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+    
+    @Column(name = "sales_day")
+    private LocalDate day;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+    
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+    
+    @Column(nullable = false)
+    private Long units;
+    
+    @Column(nullable = false)
+    private Double revenue;
+    
+    public SellerSalesRollup() {
+    }
+    
+    // Getters and Setters
+    public String getKey() {
+        return key;
+    }
+    
+    public void setKey(String key) {
+        this.key = key;
+    }
+    
+    public Long getSellerId() {
+        return sellerId;
+    }
+    
+    public void setSellerId(Long sellerId) {
+        this.sellerId = sellerId;
+    }
+    
+    public LocalDate getDay() {
+        return day;
+    }
+    
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+    
+    public Long getOrderCount() {
+        return orderCount;
+    }
+    
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+    
+    public Long getUnits() {
+        return units;
+    }
+    
+    public void setUnits(Long units) {
+        this.units = units;
+    }
+    
+    public Double getRevenue() {
+        return revenue;
+    }
+    
+    public void setRevenue(Double revenue) {
+        this.revenue = revenue;
+    }
+}
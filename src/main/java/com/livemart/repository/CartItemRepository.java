@@ -3,12 +3,22 @@ package com.livemart.repository;
 import com.livemart.model.Cart;
 import com.livemart.model.CartItem;
 import com.livemart.model.Product;
+import com.livemart.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
+    
+    @Query("SELECT DISTINCT i.product.id FROM CartItem i WHERE i.cart.user = :user")
+    List<Long> findProductIdsByUser(@Param("user") User user);
+    
+    @Query("SELECT DISTINCT i.product.seller.id FROM CartItem i WHERE i.cart.user = :user")
+    List<Long> findSellerIdsByUser(@Param("user") User user);
 }
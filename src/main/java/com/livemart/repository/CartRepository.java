@@ -3,6 +3,8 @@ package com.livemart.repository;
 import com.livemart.model.Cart;
 import com.livemart.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,4 +12,9 @@ import java.util.Optional;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUser(User user);
+    
+    // Cart, lines, products and sellers in one query for checkout
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product p " +
+           "LEFT JOIN FETCH p.seller WHERE c.user = :user")
+    Optional<Cart> findForCheckoutByUser(@Param("user") User user);
 }
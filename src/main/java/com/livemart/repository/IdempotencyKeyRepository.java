@@ -0,0 +1,23 @@
+package com.livemart.repository;
+
+import com.livemart.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+    
+    // The order comes back in the same primary key lookup
+    @Query("SELECT k FROM IdempotencyKey k LEFT JOIN FETCH k.order WHERE k.key = :key")
+    Optional<IdempotencyKey> findWithOrderByKey(@Param("key") String key);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
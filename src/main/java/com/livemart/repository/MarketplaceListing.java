@@ -0,0 +1,38 @@
+package com.livemart.repository;
+
+// Read-only view of a wholesaler product for the B2B marketplace grid
+public class MarketplaceListing {
+    
+    private final Long id;
+    private final String name;
+    private final String category;
+    private final Double price;
+    private final Integer stockQuantity;
+    private final String imageUrl;
+    private final String sellerName;
+    
+    public MarketplaceListing(Long id, String name, String category, Double price, Integer stockQuantity,
+                              String imageUrl, String sellerName) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.imageUrl = imageUrl;
+        this.sellerName = sellerName;
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getName() { return name; }
+    
+    public String getCategory() { return category; }
+    
+    public Double getPrice() { return price; }
+    
+    public Integer getStockQuantity() { return stockQuantity; }
+    
+    public String getImageUrl() { return imageUrl; }
+    
+    public String getSellerName() { return sellerName; }
+}
@@ -0,0 +1,34 @@
+package com.livemart.repository;
+
+// Read-only view of one order line, with just the product fields the order pages show
+public class OrderLineSummary {
+    
+    private final Long orderId;
+    private final Long productId;
+    private final String productName;
+    private final Integer quantity;
+    private final Double price;
+    private final Double subtotal;
+    
+    public OrderLineSummary(Long orderId, Long productId, String productName, Integer quantity, Double price,
+                            Double subtotal) {
+        this.orderId = orderId;
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.price = price;
+        this.subtotal = subtotal;
+    }
+    
+    public Long getOrderId() { return orderId; }
+    
+    public Long getProductId() { return productId; }
+    
+    public String getProductName() { return productName; }
+    
+    public Integer getQuantity() { return quantity; }
+    
+    public Double getPrice() { return price; }
+    
+    public Double getSubtotal() { return subtotal; }
+}
@@ -1,16 +1,74 @@
 package com.livemart.repository;
 
 import com.livemart.model.Order;
+import com.livemart.model.OrderStatus;
 import com.livemart.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+    // Items, products and sellers come back in the same select instead of one query per row per level
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product", "orderItems.product.seller"})
     List<Order> findByUserOrderByCreatedAtDesc(User user);
     
+    @Query("SELECT new com.livemart.repository.OrderSummary(o.id, o.orderNumber, u.id, o.status, o.paymentMethod, " +
+           "o.paymentCompleted, o.totalAmount, o.specialInstructions, o.createdAt, o.deliveryDate, " +
+           "u.address, u.city, u.state, u.pincode, u.phone) " +
+           "FROM Order o JOIN o.user u WHERE u.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findSummariesByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT new com.livemart.repository.OrderSummary(o.id, o.orderNumber, u.id, o.status, o.paymentMethod, " +
+           "o.paymentCompleted, o.totalAmount, o.specialInstructions, o.createdAt, o.deliveryDate, " +
+           "u.address, u.city, u.state, u.pincode, u.phone) " +
+           "FROM Order o JOIN o.user u WHERE u.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    long countByUser(User user);
+    
+    @Query("SELECT new com.livemart.repository.OrderSummary(o.id, o.orderNumber, u.id, o.status, o.paymentMethod, " +
+           "o.paymentCompleted, o.totalAmount, o.specialInstructions, o.createdAt, o.deliveryDate, " +
+           "u.address, u.city, u.state, u.pincode, u.phone) " +
+           "FROM Order o JOIN o.user u WHERE o.id = :id")
+    Optional<OrderSummary> findSummaryById(@Param("id") Long id);
+    
+    @Query("SELECT new com.livemart.repository.OrderLineSummary(i.order.id, p.id, p.name, i.quantity, i.price, i.subtotal) " +
+           "FROM OrderItem i JOIN i.product p WHERE i.order.id IN :orderIds ORDER BY i.id")
+    List<OrderLineSummary> findLineSummariesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+    
     List<Order> findAllByOrderByCreatedAtDesc();
+    
+    // Orders containing at least one of the seller's products, newest first, starting after the given
+    // position. The seller's order ids come from their products through order_items, so the cost follows
+    // the seller's own order volume rather than the size of the orders table.
+    @EntityGraph(attributePaths = {"user"})
+    @Query("SELECT o FROM Order o " +
+           "WHERE o.id IN (SELECT i.order.id FROM OrderItem i WHERE i.product.seller = :seller) " +
+           "AND (:status IS NULL OR o.status = :status) " +
+           "AND (:afterCreatedAt IS NULL OR o.createdAt < :afterCreatedAt " +
+           "     OR (o.createdAt = :afterCreatedAt AND o.id < :afterId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findSellerOrders(@Param("seller") User seller,
+                                 @Param("status") OrderStatus status,
+                                 @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+    
+    // Initializes the items of already loaded orders in one select; paged queries cannot fetch-join a collection
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product p " +
+           "LEFT JOIN FETCH p.seller WHERE o IN :orders")
+    List<Order> fetchOrderItems(@Param("orders") Collection<Order> orders);
+    
+    @Query("SELECT COUNT(DISTINCT i.order.id) FROM OrderItem i WHERE i.product.seller = :seller")
+    long countSellerOrders(@Param("seller") User seller);
 }
@@ -0,0 +1,85 @@
+package com.livemart.repository;
+
+import com.livemart.model.OrderStatus;
+import com.livemart.model.PaymentMethod;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read-only view of an order for the customer's order pages; lines are attached after loading
+public class OrderSummary {
+    
+    private final Long id;
+    private final String orderNumber;
+    private final Long userId;
+    private final OrderStatus status;
+    private final PaymentMethod paymentMethod;
+    private final Boolean paymentCompleted;
+    private final Double totalAmount;
+    private final String specialInstructions;
+    private final LocalDateTime createdAt;
+    private final LocalDate deliveryDate;
+    private final String deliveryAddress;
+    private final String deliveryCity;
+    private final String deliveryState;
+    private final String deliveryPincode;
+    private final String deliveryPhone;
+    private List<OrderLineSummary> orderItems = new ArrayList<>();
+    
+    public OrderSummary(Long id, String orderNumber, Long userId, OrderStatus status, PaymentMethod paymentMethod,
+                        Boolean paymentCompleted, Double totalAmount, String specialInstructions,
+                        LocalDateTime createdAt, LocalDate deliveryDate, String deliveryAddress, String deliveryCity,
+                        String deliveryState, String deliveryPincode, String deliveryPhone) {
+        this.id = id;
+        this.orderNumber = orderNumber;
+        this.userId = userId;
+        this.status = status;
+        this.paymentMethod = paymentMethod;
+        this.paymentCompleted = paymentCompleted;
+        this.totalAmount = totalAmount;
+        this.specialInstructions = specialInstructions;
+        this.createdAt = createdAt;
+        this.deliveryDate = deliveryDate;
+        this.deliveryAddress = deliveryAddress;
+        this.deliveryCity = deliveryCity;
+        this.deliveryState = deliveryState;
+        this.deliveryPincode = deliveryPincode;
+        this.deliveryPhone = deliveryPhone;
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getOrderNumber() { return orderNumber; }
+    
+    public Long getUserId() { return userId; }
+    
+    public OrderStatus getStatus() { return status; }
+    
+    public PaymentMethod getPaymentMethod() { return paymentMethod; }
+    
+    public Boolean getPaymentCompleted() { return paymentCompleted; }
+    
+    public Double getTotalAmount() { return totalAmount; }
+    
+    public String getSpecialInstructions() { return specialInstructions; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    
+    public LocalDate getDeliveryDate() { return deliveryDate; }
+    
+    public String getDeliveryAddress() { return deliveryAddress; }
+    
+    public String getDeliveryCity() { return deliveryCity; }
+    
+    public String getDeliveryState() { return deliveryState; }
+    
+    public String getDeliveryPincode() { return deliveryPincode; }
+    
+    public String getDeliveryPhone() { return deliveryPhone; }
+    
+    public List<OrderLineSummary> getOrderItems() { return orderItems; }
+    
+    public void setOrderItems(List<OrderLineSummary> orderItems) { this.orderItems = orderItems; }
+}
@@ -2,19 +2,70 @@ package com.livemart.repository;
 
 import com.livemart.model.Product;
 import com.livemart.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
     
     List<Product> findBySeller(User seller);
     
+    long countBySeller(User seller);
+    
+    @Query("SELECT p FROM Product p WHERE p.seller = :seller AND p.stockQuantity <= :threshold " +
+           "ORDER BY p.stockQuantity ASC, p.id ASC")
+    List<Product> findLowStock(@Param("seller") User seller, @Param("threshold") Integer threshold, Pageable pageable);
+    
+    // Both return the number of rows changed
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = :quantity WHERE p.id = :id")
+    int setStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    // Current counts as id, stock pairs, bypassing the stale copies a bulk update leaves behind
+    @Query("SELECT p.id, p.stockQuantity FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStockByIdIn(@Param("ids") Collection<Long> ids);
+    
     List<Product> findByAvailableTrue();
     
     List<Product> findByCategory(String category);
     
-    List<Product> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(String name, String description);
+    @Query("SELECT DISTINCT p.category FROM Product p ORDER BY p.category")
+    List<String> findDistinctCategories();
+    
+    @Query("SELECT new com.livemart.repository.MarketplaceListing(p.id, p.name, p.category, p.price, p.stockQuantity, p.imageUrl, s.fullName) " +
+           "FROM Product p JOIN p.seller s " +
+           "WHERE s.role = com.livemart.model.UserRole.WHOLESALER AND s.id <> :buyerId " +
+           "AND p.available = true AND p.stockQuantity > 0 " +
+           "AND (:category IS NULL OR p.category = :category) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<MarketplaceListing> findMarketplaceListings(@Param("buyerId") Long buyerId,
+                                                      @Param("category") String category,
+                                                      Pageable pageable);
+    
+    // pattern is a lower-cased LIKE pattern with \ as its escape character
+    @Query("SELECT new com.livemart.repository.MarketplaceListing(p.id, p.name, p.category, p.price, p.stockQuantity, p.imageUrl, s.fullName) " +
+           "FROM Product p JOIN p.seller s " +
+           "WHERE s.role = com.livemart.model.UserRole.WHOLESALER AND s.id <> :buyerId " +
+           "AND p.available = true AND p.stockQuantity > 0 " +
+           "AND (:category IS NULL OR p.category = :category) " +
+           "AND (LOWER(p.name) LIKE :pattern ESCAPE '\\' OR LOWER(p.description) LIKE :pattern ESCAPE '\\') " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<MarketplaceListing> findMarketplaceListingsMatching(@Param("buyerId") Long buyerId,
+                                                              @Param("category") String category,
+                                                              @Param("pattern") String pattern,
+                                                              Pageable pageable);
 }
@@ -0,0 +1,21 @@
+package com.livemart.repository;
+
+import com.livemart.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ProductRepositoryCustom {
+    
+    // Like findAll(spec, pageable) for the first page, but without the count query
+    List<Product> findSlice(Specification<Product> spec, Sort sort, int limit);
+    
+    // Re-reads a product after a bulk update, including any copy already in the persistence context
+    Optional<Product> findFreshById(Long id);
+    
+    // Conditional decrement of several products in one JDBC batch; returns the ids that were short of stock
+    List<Long> decrementStock(Map<Long, Integer> quantities);
+}
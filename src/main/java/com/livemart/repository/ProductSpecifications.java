@@ -0,0 +1,60 @@
+package com.livemart.repository;
+
+import com.livemart.model.Product;
+import com.livemart.model.User;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class ProductSpecifications {
+    
+    private ProductSpecifications() {
+    }
+    
+    public static Specification<Product> isAvailable() {
+        return (root, query, cb) -> cb.isTrue(root.get("available"));
+    }
+    
+    // Exact match so idx_products_available_category can be used; callers pass the canonical spelling
+    public static Specification<Product> inCategory(String category) {
+        if (category == null || category.isEmpty() || category.equals("all")) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+    
+    public static Specification<Product> priceAtLeast(Double minPrice) {
+        if (minPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+    
+    public static Specification<Product> priceAtMost(Double maxPrice) {
+        if (maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+    
+    public static Specification<Product> inStock(Boolean inStock) {
+        if (inStock == null || !inStock) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThan(root.get("stockQuantity"), 0);
+    }
+    
+    public static Specification<Product> soldBy(User seller) {
+        return (root, query, cb) -> cb.equal(root.get("seller"), seller);
+    }
+    
+    // Keyset predicate for listings ordered by (createdAt DESC, id DESC)
+    public static Specification<Product> createdBefore(SeekCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.or(
+            cb.lessThan(root.get("createdAt"), cursor.getCreatedAt()),
+            cb.and(
+                cb.equal(root.get("createdAt"), cursor.getCreatedAt()),
+                cb.lessThan(root.get("id"), cursor.getId())));
+    }
+}
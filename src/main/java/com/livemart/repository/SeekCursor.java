@@ -0,0 +1,41 @@
+package com.livemart.repository;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+// Position in a listing ordered by (createdAt DESC, id DESC)
+public final class SeekCursor {
+    
+    private final LocalDateTime createdAt;
+    private final Long id;
+    
+    public SeekCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    
+    public Long getId() { return id; }
+    
+    public String encode() {
+        return createdAt + "_" + id;
+    }
+    
+    // Returns null for a missing or malformed cursor, which means "first page"
+    public static SeekCursor decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        int separator = value.lastIndexOf('_');
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            return new SeekCursor(LocalDateTime.parse(value.substring(0, separator)),
+                Long.parseLong(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+}
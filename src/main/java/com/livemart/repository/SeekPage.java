@@ -0,0 +1,20 @@
+package com.livemart.repository;
+
+import java.util.List;
+
+public class SeekPage<T> {
+    
+    private final List<T> content;
+    private final String nextCursor;
+    
+    public SeekPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<T> getContent() { return content; }
+    
+    public String getNextCursor() { return nextCursor; }
+    
+    public boolean hasNext() { return nextCursor != null; }
+}
@@ -0,0 +1,17 @@
+package com.livemart.repository;
+
+import com.livemart.model.SellerSalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SellerSalesRollupRepository extends JpaRepository<SellerSalesRollup, String> {
+    
+    // At most one row per order status
+    List<SellerSalesRollup> findBySellerIdAndDayIsNull(Long sellerId);
+    
+    List<SellerSalesRollup> findBySellerIdAndDay(Long sellerId, LocalDate day);
+}
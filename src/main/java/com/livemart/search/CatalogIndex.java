@@ -0,0 +1,15 @@
+package com.livemart.search;
+
+import com.livemart.model.Product;
+
+import java.util.Collection;
+
+// In-memory view of the product catalog, kept in sync by ProductService
+public interface CatalogIndex {
+    
+    void rebuild(Collection<Product> products);
+    
+    void index(Product product);
+    
+    void remove(Long productId);
+}
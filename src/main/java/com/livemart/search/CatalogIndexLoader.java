@@ -0,0 +1,31 @@
+package com.livemart.search;
+
+import com.livemart.model.Product;
+import com.livemart.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Component
+public class CatalogIndexLoader {
+    
+    private final ProductRepository productRepository;
+    private final List<CatalogIndex> catalogIndexes;
+    
+    public CatalogIndexLoader(ProductRepository productRepository, List<CatalogIndex> catalogIndexes) {
+        this.productRepository = productRepository;
+        this.catalogIndexes = catalogIndexes;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadIndexes() {
+        List<Product> products = productRepository.findAll();
+        for (CatalogIndex index : catalogIndexes) {
+            index.rebuild(products);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.livemart.search;
+
+import com.livemart.model.Product;
+
+import java.time.ZoneOffset;
+
+// Filterable and sortable fields of one product as held by CatalogSnapshotIndex
+record CatalogRow(long id, double price, int stock, boolean available, String category, String country,
+                  String name, long createdAt) {
+    
+    // Same default as Product gets when it is first saved; facet sorting needs a non-null name
+    private static final String DEFAULT_COUNTRY = "India";
+    
+    static CatalogRow of(Product product) {
+        return new CatalogRow(
+            product.getId(),
+            product.getPrice() != null ? product.getPrice() : 0,
+            product.getStockQuantity() != null ? product.getStockQuantity() : 0,
+            Boolean.TRUE.equals(product.getAvailable()),
+            product.getCategory() != null ? product.getCategory() : "",
+            product.getManufacturingCountry() != null && !product.getManufacturingCountry().isEmpty()
+                ? product.getManufacturingCountry()
+                : DEFAULT_COUNTRY,
+            product.getName() != null ? product.getName() : "",
+            product.getCreatedAt() != null ? product.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli() : 0);
+    }
+}
@@ -0,0 +1,213 @@
+package com.livemart.search;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.*;
+
+// Immutable, column-oriented copy of the filterable and sortable product fields. Positions are ordered by
+// product id descending; a new snapshot is published whenever the catalog changes.
+public final class CatalogSnapshot {
+    
+    static final CatalogSnapshot EMPTY = build(Collections.emptyMap());
+    
+    final int size;
+    final long[] ids;
+    final double[] prices;
+    final int[] stock;
+    final BitSet available;
+    final int[] categoryOrd;
+    final int[] countryOrd;
+    final String[] names;
+    final long[] createdAt;
+    final String[] categoryNames;
+    final String[] countryNames;
+    
+    private final Map<Long, Integer> positionById;
+    private final Map<String, Integer> categoryOrdinals;
+    private final Map<String, Integer> countryOrdinals;
+    
+    private CatalogSnapshot(long[] ids, double[] prices, int[] stock, BitSet available, int[] categoryOrd,
+                            int[] countryOrd, String[] names, long[] createdAt,
+                            String[] categoryNames, String[] countryNames,
+                            Map<Long, Integer> positionById, Map<String, Integer> categoryOrdinals,
+                            Map<String, Integer> countryOrdinals) {
+        this.size = ids.length;
+        this.ids = ids;
+        this.prices = prices;
+        this.stock = stock;
+        this.available = available;
+        this.categoryOrd = categoryOrd;
+        this.countryOrd = countryOrd;
+        this.names = names;
+        this.createdAt = createdAt;
+        this.categoryNames = categoryNames;
+        this.countryNames = countryNames;
+        this.positionById = positionById;
+        this.categoryOrdinals = categoryOrdinals;
+        this.countryOrdinals = countryOrdinals;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    // Ids of available products matching the filter. With candidates the result keeps their
+    // order, otherwise it scans the whole catalog (newest id first).
+    public long[] filter(List<Long> candidates, String category, Double minPrice, Double maxPrice, boolean onlyInStock) {
+        BitSet categoryFilter = categoryMatches(category);
+        double min = minPrice != null ? minPrice : Double.NEGATIVE_INFINITY;
+        double max = maxPrice != null ? maxPrice : Double.POSITIVE_INFINITY;
+        int minStock = onlyInStock ? 1 : Integer.MIN_VALUE;
+        
+        if (candidates == null) {
+            long[] out = new long[size];
+            int count = 0;
+            for (int i = available.nextSetBit(0); i >= 0; i = available.nextSetBit(i + 1)) {
+                if (prices[i] >= min & prices[i] <= max & stock[i] >= minStock
+                        & (categoryFilter == null || categoryFilter.get(categoryOrd[i]))) {
+                    out[count++] = ids[i];
+                }
+            }
+            return Arrays.copyOf(out, count);
+        }
+        
+        long[] out = new long[candidates.size()];
+        int count = 0;
+        for (Long id : candidates) {
+            Integer position = positionById.get(id);
+            if (position == null) {
+                continue;
+            }
+            int i = position;
+            if (available.get(i) & prices[i] >= min & prices[i] <= max & stock[i] >= minStock
+                    & (categoryFilter == null || categoryFilter.get(categoryOrd[i]))) {
+                out[count++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+    
+    // ids, which must come from this snapshot, reordered by sort on price, name, createdAt and id,
+    // as the database would order them; other properties are ignored
+    public long[] sort(long[] ids, Sort sort) {
+        Comparator<Integer> order = null;
+        for (Sort.Order property : sort) {
+            Comparator<Integer> column = switch (property.getProperty()) {
+                case "price" -> Comparator.comparingDouble(i -> prices[i]);
+                case "name" -> Comparator.comparing(i -> names[i]);
+                case "createdAt" -> Comparator.comparingLong(i -> createdAt[i]);
+                case "id" -> Comparator.comparingLong(i -> this.ids[i]);
+                default -> null;
+            };
+            if (column != null) {
+                column = property.isDescending() ? column.reversed() : column;
+                order = order == null ? column : order.thenComparing(column);
+            }
+        }
+        if (order == null) {
+            return ids;
+        }
+        Integer[] positions = new Integer[ids.length];
+        for (int k = 0; k < ids.length; k++) {
+            positions[k] = positionById.get(ids[k]);
+        }
+        Arrays.sort(positions, order);
+        long[] sorted = new long[ids.length];
+        for (int k = 0; k < positions.length; k++) {
+            sorted[k] = this.ids[positions[k]];
+        }
+        return sorted;
+    }
+    
+    int position(Long id) {
+        Integer position = positionById.get(id);
+        return position != null ? position : -1;
+    }
+    
+    // Ordinals of the category names equal to category ignoring case; null means no category filter
+    BitSet categoryMatches(String category) {
+        if (category == null || category.isEmpty() || category.equals("all")) {
+            return null;
+        }
+        BitSet matches = new BitSet(categoryNames.length);
+        for (int i = 0; i < categoryNames.length; i++) {
+            if (categoryNames[i].equalsIgnoreCase(category)) {
+                matches.set(i);
+            }
+        }
+        return matches;
+    }
+    
+    // Applies pending row changes (null = removed). Pure value updates copy the columns and patch
+    // them in place; inserts, removals and new category/country values rebuild from all rows.
+    CatalogSnapshot apply(Map<Long, CatalogRow> pending, Map<Long, CatalogRow> rows) {
+        for (Map.Entry<Long, CatalogRow> change : pending.entrySet()) {
+            CatalogRow row = change.getValue();
+            if (row == null || !positionById.containsKey(change.getKey())
+                    || !categoryOrdinals.containsKey(row.category()) || !countryOrdinals.containsKey(row.country())) {
+                return build(rows);
+            }
+        }
+        
+        double[] newPrices = prices.clone();
+        int[] newStock = stock.clone();
+        BitSet newAvailable = (BitSet) available.clone();
+        int[] newCategoryOrd = categoryOrd.clone();
+        int[] newCountryOrd = countryOrd.clone();
+        String[] newNames = names.clone();
+        long[] newCreatedAt = createdAt.clone();
+        for (Map.Entry<Long, CatalogRow> change : pending.entrySet()) {
+            int i = positionById.get(change.getKey());
+            CatalogRow row = change.getValue();
+            newPrices[i] = row.price();
+            newStock[i] = row.stock();
+            newAvailable.set(i, row.available());
+            newCategoryOrd[i] = categoryOrdinals.get(row.category());
+            newCountryOrd[i] = countryOrdinals.get(row.country());
+            newNames[i] = row.name();
+            newCreatedAt[i] = row.createdAt();
+        }
+        return new CatalogSnapshot(ids, newPrices, newStock, newAvailable, newCategoryOrd, newCountryOrd,
+            newNames, newCreatedAt, categoryNames, countryNames, positionById, categoryOrdinals, countryOrdinals);
+    }
+    
+    static CatalogSnapshot build(Map<Long, CatalogRow> rows) {
+        List<CatalogRow> ordered = new ArrayList<>(rows.values());
+        ordered.sort(Comparator.comparingLong(CatalogRow::id).reversed());
+        
+        int n = ordered.size();
+        long[] ids = new long[n];
+        double[] prices = new double[n];
+        int[] stock = new int[n];
+        BitSet available = new BitSet(n);
+        int[] categoryOrd = new int[n];
+        int[] countryOrd = new int[n];
+        String[] names = new String[n];
+        long[] createdAt = new long[n];
+        Map<Long, Integer> positionById = new HashMap<>(n * 2);
+        Map<String, Integer> categoryOrdinals = new HashMap<>();
+        Map<String, Integer> countryOrdinals = new HashMap<>();
+        
+        for (int i = 0; i < n; i++) {
+            CatalogRow row = ordered.get(i);
+            ids[i] = row.id();
+            prices[i] = row.price();
+            stock[i] = row.stock();
+            available.set(i, row.available());
+            categoryOrd[i] = categoryOrdinals.computeIfAbsent(row.category(), k -> categoryOrdinals.size());
+            countryOrd[i] = countryOrdinals.computeIfAbsent(row.country(), k -> countryOrdinals.size());
+            names[i] = row.name();
+            createdAt[i] = row.createdAt();
+            positionById.put(row.id(), i);
+        }
+        
+        return new CatalogSnapshot(ids, prices, stock, available, categoryOrd, countryOrd, names, createdAt,
+            names(categoryOrdinals), names(countryOrdinals), positionById, categoryOrdinals, countryOrdinals);
+    }
+    
+    private static String[] names(Map<String, Integer> ordinals) {
+        String[] names = new String[ordinals.size()];
+        ordinals.forEach((name, ordinal) -> names[ordinal] = name);
+        return names;
+    }
+}
@@ -0,0 +1,64 @@
+package com.livemart.search;
+
+import com.livemart.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Publishes copy-on-write CatalogSnapshots. Writes are queued and folded into a new snapshot on
+// the next read, so a burst of stock changes costs one copy rather than one per change.
+@Component
+public class CatalogSnapshotIndex implements CatalogIndex {
+    
+    private final Map<Long, CatalogRow> rows = new HashMap<>();
+    private final Map<Long, CatalogRow> pending = new HashMap<>();
+    
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+    private volatile boolean dirty;
+    
+    @Override
+    public synchronized void rebuild(Collection<Product> products) {
+        rows.clear();
+        pending.clear();
+        for (Product product : products) {
+            rows.put(product.getId(), CatalogRow.of(product));
+        }
+        snapshot = CatalogSnapshot.build(rows);
+        dirty = false;
+    }
+    
+    @Override
+    public synchronized void index(Product product) {
+        CatalogRow row = CatalogRow.of(product);
+        if (row.equals(rows.get(product.getId()))) {
+            return;
+        }
+        rows.put(product.getId(), row);
+        pending.put(product.getId(), row);
+        dirty = true;
+    }
+    
+    @Override
+    public synchronized void remove(Long productId) {
+        if (rows.remove(productId) != null) {
+            pending.put(productId, null);
+            dirty = true;
+        }
+    }
+    
+    public CatalogSnapshot current() {
+        if (!dirty) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (dirty) {
+                snapshot = snapshot.apply(pending, rows);
+                pending.clear();
+                dirty = false;
+            }
+            return snapshot;
+        }
+    }
+}
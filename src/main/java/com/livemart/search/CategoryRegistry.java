@@ -0,0 +1,96 @@
+package com.livemart.search;
+
+import com.livemart.model.Product;
+import com.livemart.repository.ProductRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// Distinct product categories. Products are counted per category so a category drops out of the
+// list when its last product goes.
+@Component
+public class CategoryRegistry implements CatalogIndex {
+    
+    private final ProductRepository productRepository;
+    
+    private final Map<Long, String> categoryByProduct = new HashMap<>();
+    private final Map<String, Integer> counts = new HashMap<>();
+    
+    // Immutable, sorted snapshot handed out to readers
+    private volatile SortedMap<String, Integer> snapshot;
+    
+    public CategoryRegistry(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+    
+    @Override
+    public synchronized void rebuild(Collection<Product> products) {
+        categoryByProduct.clear();
+        counts.clear();
+        for (Product product : products) {
+            if (product.getCategory() != null) {
+                categoryByProduct.put(product.getId(), product.getCategory());
+                counts.merge(product.getCategory(), 1, Integer::sum);
+            }
+        }
+        publish();
+    }
+    
+    @Override
+    public synchronized void index(Product product) {
+        String previous = categoryByProduct.get(product.getId());
+        String current = product.getCategory();
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        if (previous != null) {
+            decrement(previous);
+        }
+        if (current != null) {
+            categoryByProduct.put(product.getId(), current);
+            counts.merge(current, 1, Integer::sum);
+        } else {
+            categoryByProduct.remove(product.getId());
+        }
+        publish();
+    }
+    
+    @Override
+    public synchronized void remove(Long productId) {
+        String previous = categoryByProduct.remove(productId);
+        if (previous != null) {
+            decrement(previous);
+            publish();
+        }
+    }
+    
+    public List<String> getCategories() {
+        SortedMap<String, Integer> current = snapshot;
+        if (current == null) {
+            // Not loaded yet, fall back to the database
+            return productRepository.findDistinctCategories();
+        }
+        return new ArrayList<>(current.keySet());
+    }
+    
+    // The spelling the catalog already uses for category, ignoring case; unknown categories come back as given
+    public String canonicalName(String category) {
+        if (category == null) {
+            return null;
+        }
+        for (String known : getCategories()) {
+            if (known.equalsIgnoreCase(category)) {
+                return known;
+            }
+        }
+        return category;
+    }
+    
+    private void decrement(String category) {
+        counts.computeIfPresent(category, (k, count) -> count > 1 ? count - 1 : null);
+    }
+    
+    private void publish() {
+        snapshot = Collections.unmodifiableSortedMap(new TreeMap<>(counts));
+    }
+}
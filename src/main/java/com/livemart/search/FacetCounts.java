@@ -0,0 +1,58 @@
+package com.livemart.search;
+
+import java.util.List;
+import java.util.Map;
+
+public class FacetCounts {
+    
+    private final int total;
+    private final Map<String, Integer> categories;
+    private final Map<String, Integer> countries;
+    private final List<PriceBucket> priceBuckets;
+    
+    public FacetCounts(int total, Map<String, Integer> categories, Map<String, Integer> countries,
+                       List<PriceBucket> priceBuckets) {
+        this.total = total;
+        this.categories = categories;
+        this.countries = countries;
+        this.priceBuckets = priceBuckets;
+    }
+    
+    public int getTotal() { return total; }
+    
+    public Map<String, Integer> getCategories() { return categories; }
+    
+    public Map<String, Integer> getCountries() { return countries; }
+    
+    public List<PriceBucket> getPriceBuckets() { return priceBuckets; }
+    
+    public static class PriceBucket {
+        
+        private final double min;
+        private final Double max;
+        private final int count;
+        
+        public PriceBucket(double min, Double max, int count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+        
+        public double getMin() { return min; }
+        
+        // Exclusive upper bound, null for the open-ended top bucket
+        public Double getMax() { return max; }
+        
+        public int getCount() { return count; }
+        
+        public String getLabel() {
+            if (min == 0 && max != null) {
+                return "Under ₹" + (long) (double) max;
+            }
+            if (max == null) {
+                return "₹" + (long) min + " & above";
+            }
+            return "₹" + (long) min + " - ₹" + (long) (double) max;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.livemart.search;
+
+import com.livemart.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Bounded read-through cache for single-product lookups. Entries are evicted least recently used
+// first or once their TTL passes, and are refreshed or dropped through the CatalogIndex hooks
+// after a product change commits. Callers always get their own copy of the cached product.
+@Component
+public class ProductCache implements CatalogIndex {
+    
+    private static final int SEGMENTS = 16;
+    
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long ttlNanos;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    
+    public ProductCache(@Value("${livemart.product-cache.max-size:10000}") int maxSize,
+                        @Value("${livemart.product-cache.ttl-seconds:300}") long ttlSeconds) {
+        int perSegment = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+    
+    public Product get(Long id, Function<Long, Product> loader) {
+        Segment segment = segmentFor(id);
+        long now = System.nanoTime();
+        long generation;
+        synchronized (segment) {
+            Entry entry = segment.get(id);
+            if (entry != null) {
+                if (now - entry.expiresAt < 0) {
+                    hits.increment();
+                    return copyOf(entry.product);
+                }
+                segment.remove(id);
+                expirations.increment();
+            }
+            generation = segment.generation;
+        }
+        
+        misses.increment();
+        Product loaded = loader.apply(id);
+        synchronized (segment) {
+            // Skip the put if the product was changed or removed while we were loading it
+            if (segment.generation == generation) {
+                segment.put(id, new Entry(copyOf(loaded), now + ttlNanos));
+            }
+        }
+        return copyOf(loaded);
+    }
+    
+    @Override
+    public void rebuild(Collection<Product> products) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.generation++;
+            }
+        }
+    }
+    
+    // Refresh entries already cached; products nobody has looked up are not pulled in
+    @Override
+    public void index(Product product) {
+        Segment segment = segmentFor(product.getId());
+        synchronized (segment) {
+            segment.generation++;
+            Entry entry = segment.get(product.getId());
+            if (entry != null) {
+                segment.put(product.getId(), new Entry(copyOf(product), System.nanoTime() + ttlNanos));
+            }
+        }
+    }
+    
+    @Override
+    public void remove(Long productId) {
+        Segment segment = segmentFor(productId);
+        synchronized (segment) {
+            segment.generation++;
+            segment.remove(productId);
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        return stats;
+    }
+    
+    private Segment segmentFor(Long id) {
+        return segments[(Long.hashCode(id) & 0x7fffffff) % SEGMENTS];
+    }
+    
+    private static Product copyOf(Product source) {
+        Product copy = new Product();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setDescription(source.getDescription());
+        copy.setCategory(source.getCategory());
+        copy.setPrice(source.getPrice());
+        copy.setStockQuantity(source.getStockQuantity());
+        copy.setImageUrl(source.getImageUrl());
+        copy.setSeller(source.getSeller());
+        copy.setAvailable(source.getAvailable());
+        copy.setManufacturingCountry(source.getManufacturingCountry());
+        copy.setCreatedAt(source.getCreatedAt());
+        return copy;
+    }
+    
+    private static class Entry {
+        
+        final Product product;
+        final long expiresAt;
+        
+        Entry(Product product, long expiresAt) {
+            this.product = product;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    // Access-ordered map, so the eldest entry is the least recently used one
+    private class Segment extends LinkedHashMap<Long, Entry> {
+        
+        private final int capacity;
+        long generation;
+        
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.livemart.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// Facet counts (category, manufacturing country, price bucket) over available products
+@Component
+public class ProductFacetIndex {
+    
+    private static final double[] PRICE_BOUNDS = {0, 100, 500, 1000, 5000, 10000};
+    
+    private final CatalogSnapshotIndex catalogSnapshotIndex;
+    
+    public ProductFacetIndex(CatalogSnapshotIndex catalogSnapshotIndex) {
+        this.catalogSnapshotIndex = catalogSnapshotIndex;
+    }
+    
+    // Counts for the current query in one pass over the matching products. Each facet ignores
+    // its own selection so the customer can see what switching to another value would yield.
+    public FacetCounts count(Collection<Long> candidateIds, String category, Double minPrice, Double maxPrice,
+                             Boolean onlyInStock) {
+        CatalogSnapshot snapshot = catalogSnapshotIndex.current();
+        
+        BitSet matches = (BitSet) snapshot.available.clone();
+        if (candidateIds != null) {
+            BitSet candidates = new BitSet(snapshot.size);
+            for (Long id : candidateIds) {
+                int position = snapshot.position(id);
+                if (position >= 0) {
+                    candidates.set(position);
+                }
+            }
+            matches.and(candidates);
+        }
+        
+        boolean stockFilter = onlyInStock != null && onlyInStock;
+        BitSet selectedCategories = snapshot.categoryMatches(category);
+        int[] categoryCounts = new int[snapshot.categoryNames.length];
+        int[] countryCounts = new int[snapshot.countryNames.length];
+        int[] bucketCounts = new int[PRICE_BOUNDS.length];
+        int total = 0;
+        
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            if (stockFilter && snapshot.stock[i] <= 0) {
+                continue;
+            }
+            double price = snapshot.prices[i];
+            boolean priceMatch = (minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice);
+            boolean categoryMatch = selectedCategories == null || selectedCategories.get(snapshot.categoryOrd[i]);
+            
+            if (priceMatch) {
+                categoryCounts[snapshot.categoryOrd[i]]++;
+            }
+            if (categoryMatch) {
+                bucketCounts[bucketOf(price)]++;
+            }
+            if (priceMatch && categoryMatch) {
+                countryCounts[snapshot.countryOrd[i]]++;
+                total++;
+            }
+        }
+        
+        List<FacetCounts.PriceBucket> buckets = new ArrayList<>(PRICE_BOUNDS.length);
+        for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+            Double upper = i + 1 < PRICE_BOUNDS.length ? PRICE_BOUNDS[i + 1] : null;
+            buckets.add(new FacetCounts.PriceBucket(PRICE_BOUNDS[i], upper, bucketCounts[i]));
+        }
+        return new FacetCounts(total, toCounts(snapshot.categoryNames, categoryCounts),
+            toCounts(snapshot.countryNames, countryCounts), buckets);
+    }
+    
+    private static int bucketOf(double price) {
+        for (int i = PRICE_BOUNDS.length - 1; i > 0; i--) {
+            if (price >= PRICE_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return 0;
+    }
+    
+    // Non-zero counts, largest first
+    private static Map<String, Integer> toCounts(String[] names, int[] counts) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                order.add(i);
+            }
+        }
+        order.sort((a, b) -> counts[b] != counts[a] ? counts[b] - counts[a] : names[a].compareTo(names[b]));
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int i : order) {
+            result.put(names[i], counts[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,175 @@
+package com.livemart.search;
+
+import com.livemart.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted index over product name, category and description
+@Component
+public class ProductSearchIndex implements CatalogIndex {
+    
+    private static final int NAME_WEIGHT = 5;
+    private static final int CATEGORY_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    
+    // term -> (product id -> weight)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Map<String, Integer>> termsByProduct = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    @Override
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByProduct.clear();
+            for (Product product : products) {
+                addTerms(product.getId(), weighTerms(product));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void index(Product product) {
+        Map<String, Integer> terms = weighTerms(product);
+        lock.writeLock().lock();
+        try {
+            if (terms.equals(termsByProduct.get(product.getId()))) {
+                return;
+            }
+            removeTerms(product.getId());
+            addTerms(product.getId(), terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeTerms(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Returns ids of products matching every query token, best match first.
+    // The last token also matches as a prefix so partially typed words still hit.
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                Map<Long, Integer> tokenScores = scoreToken(tokens.get(i), i == tokens.size() - 1);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            
+            List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.<Long, Integer>comparingByKey().reversed()));
+            
+            List<Long> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                ids.add(ranked.get(i).getKey());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private Map<Long, Integer> scoreToken(String token, boolean allowPrefix) {
+        Map<Long, Integer> scores = new HashMap<>();
+        Map<String, Map<Long, Integer>> matches = allowPrefix
+            ? postings.subMap(token, true, token + Character.MAX_VALUE, false)
+            : postings.subMap(token, true, token, true);
+        
+        for (Map.Entry<String, Map<Long, Integer>> match : matches.entrySet()) {
+            // Exact term matches outrank prefix matches
+            int factor = match.getKey().equals(token) ? 2 : 1;
+            for (Map.Entry<Long, Integer> posting : match.getValue().entrySet()) {
+                scores.merge(posting.getKey(), posting.getValue() * factor, Math::max);
+            }
+        }
+        return scores;
+    }
+    
+    private void addTerms(Long productId, Map<String, Integer> terms) {
+        termsByProduct.put(productId, terms);
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(productId, term.getValue());
+        }
+    }
+    
+    private void removeTerms(Long productId) {
+        Map<String, Integer> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> products = postings.get(term);
+            if (products != null) {
+                products.remove(productId);
+                if (products.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+    
+    private static Map<String, Integer> weighTerms(Product product) {
+        Map<String, Integer> terms = new HashMap<>();
+        addWeighted(terms, product.getName(), NAME_WEIGHT);
+        addWeighted(terms, product.getCategory(), CATEGORY_WEIGHT);
+        addWeighted(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+        return terms;
+    }
+    
+    private static void addWeighted(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+    
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,285 @@
+package com.livemart.search;
+
+import com.livemart.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Compressed prefix trie for search-box autocomplete. Every available product name and category
+// is inserted under each of its word suffixes ("brown rice 1kg", "rice 1kg", "1kg"), and every
+// node keeps its best TOP_K suggestions so a lookup is a single walk down the trie.
+@Component
+public class ProductSuggestionIndex implements CatalogIndex {
+    
+    private static final int TOP_K = 8;
+    private static final Suggestion[] NONE = new Suggestion[0];
+    
+    private final Node root = new Node("");
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+    private final Map<Long, List<Suggestion>> suggestionsByProduct = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    @Override
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.terminals.clear();
+            root.top = NONE;
+            suggestions.clear();
+            suggestionsByProduct.clear();
+            for (Product product : products) {
+                update(product.getId(), product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            update(product.getId(), product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            update(productId, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Best suggestions for a typed prefix, most popular first. The returned array is shared and
+    // must not be modified.
+    public Suggestion[] suggest(String prefix) {
+        // Normalized the way the keys were built, so case, punctuation and extra spaces don't matter
+        List<String> words = ProductSearchIndex.tokenize(prefix);
+        if (words.isEmpty()) {
+            return NONE;
+        }
+        String key = String.join(" ", words);
+        
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.children.get(key.charAt(i));
+                if (child == null) {
+                    return NONE;
+                }
+                int j = 0;
+                while (j < child.label.length() && i < key.length()) {
+                    if (child.label.charAt(j) != key.charAt(i)) {
+                        return NONE;
+                    }
+                    i++;
+                    j++;
+                }
+                node = child;
+            }
+            return node.top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void update(Long productId, Product product) {
+        List<Suggestion> previous = suggestionsByProduct.getOrDefault(productId, Collections.emptyList());
+        List<Suggestion> current = new ArrayList<>(2);
+        if (product != null && Boolean.TRUE.equals(product.getAvailable())) {
+            addIfPresent(current, product.getName(), false);
+            addIfPresent(current, product.getCategory(), true);
+        }
+        if (previous.equals(current)) {
+            return;
+        }
+        
+        // Increments first, so a suggestion kept by this product never drops to zero in between
+        for (Suggestion suggestion : current) {
+            if (suggestion.weight++ == 0) {
+                for (String key : suggestion.trieKeys) {
+                    insertKey(key, suggestion);
+                }
+            } else {
+                refresh(suggestion);
+            }
+        }
+        
+        for (Suggestion suggestion : previous) {
+            if (--suggestion.weight == 0) {
+                suggestions.remove(suggestion.key);
+                for (String key : suggestion.trieKeys) {
+                    removeKey(key, suggestion);
+                }
+            } else {
+                refresh(suggestion);
+            }
+        }
+        if (current.isEmpty()) {
+            suggestionsByProduct.remove(productId);
+        } else {
+            suggestionsByProduct.put(productId, current);
+        }
+    }
+    
+    private void addIfPresent(List<Suggestion> target, String text, boolean category) {
+        List<String> words = ProductSearchIndex.tokenize(text);
+        if (words.isEmpty()) {
+            return;
+        }
+        String key = (category ? "c:" : "p:") + String.join(" ", words);
+        Suggestion suggestion = suggestions.computeIfAbsent(key, k -> new Suggestion(key, text.trim(), category, words));
+        if (!target.contains(suggestion)) {
+            target.add(suggestion);
+        }
+    }
+    
+    private void refresh(Suggestion suggestion) {
+        for (String key : suggestion.trieKeys) {
+            recomputePath(pathTo(key));
+        }
+    }
+    
+    private void insertKey(String key, Suggestion suggestion) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                Node leaf = new Node(key.substring(i));
+                node.children.put(c, leaf);
+                node = leaf;
+                i = key.length();
+                break;
+            }
+            int common = 0;
+            while (common < child.label.length() && i + common < key.length()
+                    && child.label.charAt(common) == key.charAt(i + common)) {
+                common++;
+            }
+            if (common < child.label.length()) {
+                // Split the edge at the first differing character
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                node.children.put(c, split);
+                child = split;
+            }
+            node = child;
+            i += common;
+        }
+        node.terminals.add(suggestion);
+        recomputePath(pathTo(key));
+    }
+    
+    private void removeKey(String key, Suggestion suggestion) {
+        List<Node> path = pathTo(key);
+        if (path == null) {
+            return;
+        }
+        Node terminal = path.get(path.size() - 1);
+        terminal.terminals.remove(suggestion);
+        // Drop nodes that no longer lead anywhere
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (!node.terminals.isEmpty() || !node.children.isEmpty()) {
+                break;
+            }
+            path.get(i - 1).children.remove(node.label.charAt(0));
+            path.remove(i);
+        }
+        recomputePath(path);
+    }
+    
+    private List<Node> pathTo(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return null;
+            }
+            path.add(child);
+            i += child.label.length();
+            node = child;
+        }
+        return path;
+    }
+    
+    // A node's top list is the best of its own terminals and its children's top lists, so only
+    // the nodes on the changed key's path need recomputing, deepest first.
+    private void recomputePath(List<Node> path) {
+        if (path == null) {
+            return;
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Suggestion> candidates = new ArrayList<>(node.terminals);
+            for (Node child : node.children.values()) {
+                for (Suggestion suggestion : child.top) {
+                    if (!candidates.contains(suggestion)) {
+                        candidates.add(suggestion);
+                    }
+                }
+            }
+            candidates.sort(Suggestion.BY_POPULARITY);
+            node.top = candidates.subList(0, Math.min(TOP_K, candidates.size())).toArray(NONE);
+        }
+    }
+    
+    private static class Node {
+        
+        String label;
+        final Map<Character, Node> children = new HashMap<>();
+        final List<Suggestion> terminals = new ArrayList<>(1);
+        Suggestion[] top = NONE;
+        
+        Node(String label) {
+            this.label = label;
+        }
+    }
+    
+    public static class Suggestion {
+        
+        static final Comparator<Suggestion> BY_POPULARITY = Comparator.comparingInt((Suggestion s) -> s.weight).reversed()
+            .thenComparing(s -> s.text);
+        
+        private final String key;
+        private final String text;
+        private final boolean category;
+        private final List<String> trieKeys;
+        
+        // Number of available products carrying this name or category
+        private int weight;
+        
+        Suggestion(String key, String text, boolean category, List<String> words) {
+            this.key = key;
+            this.text = text;
+            this.category = category;
+            this.trieKeys = new ArrayList<>(words.size());
+            for (int i = 0; i < words.size(); i++) {
+                String suffix = String.join(" ", words.subList(i, words.size()));
+                if (!trieKeys.contains(suffix)) {
+                    trieKeys.add(suffix);
+                }
+            }
+        }
+        
+        public String getText() { return text; }
+        
+        public boolean isCategory() { return category; }
+    }
+}
@@ -0,0 +1,178 @@
+package com.livemart.search;
+
+import com.livemart.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Character trigram index over product name and category words for typo-tolerant search
+@Component
+public class ProductTrigramIndex implements CatalogIndex {
+    
+    private static final int MAX_CANDIDATES = 200;
+    private static final double MIN_SIMILARITY = 0.4;
+    
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, List<String>> wordsByProduct = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    @Override
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            wordsByProduct.clear();
+            for (Product product : products) {
+                addWords(product.getId(), wordsOf(product));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void index(Product product) {
+        List<String> words = wordsOf(product);
+        lock.writeLock().lock();
+        try {
+            if (words.equals(wordsByProduct.get(product.getId()))) {
+                return;
+            }
+            removeWords(product.getId());
+            addWords(product.getId(), words);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeWords(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Ids of products whose words are similar to the query words, most similar first. Each query
+    // word is scored by its best Dice coefficient against the product's words and the scores averaged.
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = ProductSearchIndex.tokenize(query);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Set<String>> queryGrams = new ArrayList<>(tokens.size());
+        Set<String> allGrams = new HashSet<>();
+        for (String token : tokens) {
+            Set<String> grams = trigrams(token);
+            queryGrams.add(grams);
+            allGrams.addAll(grams);
+        }
+        
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> sharedGrams = new HashMap<>();
+            for (String gram : allGrams) {
+                for (Long id : postings.getOrDefault(gram, Collections.emptySet())) {
+                    sharedGrams.merge(id, 1, Integer::sum);
+                }
+            }
+            
+            // Only the products sharing the most trigrams are scored in full
+            List<Map.Entry<Long, Integer>> candidates = new ArrayList<>(sharedGrams.entrySet());
+            candidates.sort(Map.Entry.<Long, Integer>comparingByValue().reversed());
+            if (candidates.size() > MAX_CANDIDATES) {
+                candidates = candidates.subList(0, MAX_CANDIDATES);
+            }
+            
+            List<Map.Entry<Long, Double>> scored = new ArrayList<>();
+            for (Map.Entry<Long, Integer> candidate : candidates) {
+                double similarity = similarity(queryGrams, wordsByProduct.get(candidate.getKey()));
+                if (similarity >= MIN_SIMILARITY) {
+                    scored.add(Map.entry(candidate.getKey(), similarity));
+                }
+            }
+            scored.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed()));
+            
+            List<Long> ids = new ArrayList<>(Math.min(limit, scored.size()));
+            for (int i = 0; i < scored.size() && i < limit; i++) {
+                ids.add(scored.get(i).getKey());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static double similarity(List<Set<String>> queryGrams, List<String> words) {
+        double total = 0;
+        for (Set<String> grams : queryGrams) {
+            double best = 0;
+            for (String word : words) {
+                best = Math.max(best, dice(grams, trigrams(word)));
+            }
+            total += best;
+        }
+        return total / queryGrams.size();
+    }
+    
+    private static double dice(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        int shared = 0;
+        for (String gram : a) {
+            if (b.contains(gram)) {
+                shared++;
+            }
+        }
+        return 2.0 * shared / (a.size() + b.size());
+    }
+    
+    // Padded so that word starts weigh more than word middles ("rice" -> "  r", " ri", "ric", "ice", "ce ")
+    static Set<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+    
+    private void addWords(Long productId, List<String> words) {
+        wordsByProduct.put(productId, words);
+        for (String word : words) {
+            for (String gram : trigrams(word)) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>()).add(productId);
+            }
+        }
+    }
+    
+    private void removeWords(Long productId) {
+        List<String> words = wordsByProduct.remove(productId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            for (String gram : trigrams(word)) {
+                Set<Long> products = postings.get(gram);
+                if (products != null) {
+                    products.remove(productId);
+                    if (products.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+    
+    private static List<String> wordsOf(Product product) {
+        Set<String> words = new LinkedHashSet<>(ProductSearchIndex.tokenize(product.getName()));
+        words.addAll(ProductSearchIndex.tokenize(product.getCategory()));
+        return new ArrayList<>(words);
+    }
+}
@@ -1,7 +1,9 @@
 package com.livemart.security;
 
+import com.livemart.model.Role;
 import com.livemart.model.User;
 import com.livemart.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,17 +16,21 @@ import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Map;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class CustomUserDetailsService extends DefaultOAuth2UserService implements UserDetailsService {
     
     private final UserRepository userRepository;
+    private final Set<String> adminEmails;
     
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${livemart.admin-emails:}") Set<String> adminEmails) {
         this.userRepository = userRepository;
+        this.adminEmails = adminEmails.stream()
+            .map(email -> email.trim().toLowerCase())
+            .collect(Collectors.toSet());
     }
     
     @Override
@@ -62,7 +68,13 @@ public class CustomUserDetailsService extends DefaultOAuth2UserService implement
         );
     }
     
+    // Accounts listed in livemart.admin-emails also get ADMIN, which the operational /metrics pages require
     private Collection<? extends GrantedAuthority> getAuthorities(User user) {
-        return Collections.singletonList(new SimpleGrantedAuthority(user.getRole().name()));
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority(user.getRole().name()));
+        if (user.getEmail() != null && adminEmails.contains(user.getEmail().toLowerCase())) {
+            authorities.add(new SimpleGrantedAuthority(Role.ADMIN.name()));
+        }
+        return authorities;
     }
 }
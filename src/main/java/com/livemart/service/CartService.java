@@ -9,6 +9,7 @@ import com.livemart.repository.CartRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -33,6 +34,18 @@ public class CartService {
         });
     }
     
+    public Cart getCartForCheckout(User user) {
+        return cartRepository.findForCheckoutByUser(user).orElseGet(() -> getOrCreateCart(user));
+    }
+    
+    public List<Long> getCartProductIds(User user) {
+        return cartItemRepository.findProductIdsByUser(user);
+    }
+    
+    public List<Long> getCartSellerIds(User user) {
+        return cartItemRepository.findSellerIdsByUser(user);
+    }
+    
     public Cart addToCart(User user, Long productId, Integer quantity) {
         Cart cart = getOrCreateCart(user);
         Product product = productService.getProductById(productId);
@@ -102,10 +115,4 @@ public class CartService {
         
         return cartRepository.save(cart);
     }
-    
-    public void clearCart(User user) {
-        Cart cart = getOrCreateCart(user);
-        cart.getItems().clear();
-        cartRepository.save(cart);
-    }
 }
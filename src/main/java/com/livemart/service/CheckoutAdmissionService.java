@@ -0,0 +1,171 @@
+package com.livemart.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Flash-sale admission control. A checkout that includes a flash-sale product has to take one of
+// that product's permits before it opens a transaction, so the database only ever sees a fixed
+// number of concurrent checkouts per product. Waiting checkouts are let in first come, first
+// served; once the waiting room is full or the product is sold out, they are turned away at once.
+@Service
+public class CheckoutAdmissionService {
+    
+    private final ProductService productService;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+    // Fixed at startup, so reads need no locking
+    private final Map<Long, Gate> gates = new HashMap<>();
+    
+    public CheckoutAdmissionService(ProductService productService,
+                                    @Value("${livemart.flash-sale.product-ids:}") Set<Long> productIds,
+                                    @Value("${livemart.flash-sale.permits:4}") int permits,
+                                    @Value("${livemart.flash-sale.max-queue:100}") int maxQueue,
+                                    @Value("${livemart.flash-sale.max-wait-ms:5000}") long maxWaitMillis) {
+        this.productService = productService;
+        this.maxQueue = maxQueue;
+        this.maxWaitMillis = maxWaitMillis;
+        for (Long productId : productIds) {
+            gates.put(productId, new Gate(productId, permits));
+        }
+    }
+    
+    // Runs the checkout once it holds a permit for every flash-sale product among productIds
+    public <T> T admit(Collection<Long> productIds, Supplier<T> checkout) {
+        List<Gate> needed = productIds.stream()
+            .distinct()
+            .sorted()
+            .map(gates::get)
+            .filter(Objects::nonNull)
+            .toList();
+        if (needed.isEmpty()) {
+            return checkout.get();
+        }
+        List<Gate> entered = new ArrayList<>(needed.size());
+        try {
+            // Always in product id order, so two checkouts wanting the same products cannot deadlock
+            for (Gate gate : needed) {
+                gate.enter();
+                entered.add(gate);
+            }
+            return checkout.get();
+        } finally {
+            entered.forEach(Gate::leave);
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        new TreeMap<>(gates).forEach((productId, gate) -> stats.put(String.valueOf(productId), gate.getStats()));
+        return stats;
+    }
+    
+    private class Gate {
+        
+        private final Long productId;
+        private final int permitCount;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rejectedQueueFull = new LongAdder();
+        private final LongAdder rejectedSoldOut = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder totalWaitMillis = new LongAdder();
+        private final AtomicLong maxWaitMillisSeen = new AtomicLong();
+        
+        Gate(Long productId, int permitCount) {
+            this.productId = productId;
+            this.permitCount = permitCount;
+            // Fair, so permits go to waiting checkouts in arrival order
+            this.permits = new Semaphore(permitCount, true);
+        }
+        
+        void enter() {
+            if (isSoldOut()) {
+                rejectedSoldOut.increment();
+                throw new RuntimeException("Sorry, this item is sold out");
+            }
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                rejectedQueueFull.increment();
+                throw new RuntimeException("Checkout is very busy right now. Please try again in a moment.");
+            }
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Checkout was interrupted");
+            } finally {
+                waiting.decrementAndGet();
+                long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                waits.increment();
+                totalWaitMillis.add(waited);
+                maxWaitMillisSeen.accumulateAndGet(waited, Math::max);
+            }
+            if (!acquired) {
+                timedOut.increment();
+                throw new RuntimeException("Checkout is very busy right now. Please try again in a moment.");
+            }
+            // The last units may have sold while this checkout waited
+            boolean soldOut;
+            try {
+                soldOut = isSoldOut();
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            if (soldOut) {
+                permits.release();
+                rejectedSoldOut.increment();
+                throw new RuntimeException("Sorry, this item is sold out");
+            }
+            admitted.increment();
+        }
+        
+        void leave() {
+            permits.release();
+        }
+        
+        // From the product cache and inventory ledger, so turning a checkout away costs no query.
+        // A deleted product is left for the checkout to reject; any other failure is passed on
+        // rather than letting the checkout in unchecked.
+        private boolean isSoldOut() {
+            try {
+                Integer stock = productService.getProductById(productId).getStockQuantity();
+                return stock != null && stock <= 0;
+            } catch (RuntimeException e) {
+                if ("Product not found".equals(e.getMessage())) {
+                    return false;
+                }
+                System.err.println("Flash sale stock check failed for product " + productId + ": " + e.getMessage());
+                throw e;
+            }
+        }
+        
+        Map<String, Object> getStats() {
+            long waitCount = waits.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("permits", permitCount);
+            stats.put("inFlight", permitCount - permits.availablePermits());
+            stats.put("queueDepth", waiting.get());
+            stats.put("admitted", admitted.sum());
+            stats.put("rejectedQueueFull", rejectedQueueFull.sum());
+            stats.put("rejectedSoldOut", rejectedSoldOut.sum());
+            stats.put("timedOut", timedOut.sum());
+            stats.put("avgWaitMillis", waitCount == 0 ? 0.0 : (double) totalWaitMillis.sum() / waitCount);
+            stats.put("maxWaitMillis", maxWaitMillisSeen.get());
+            return stats;
+        }
+    }
+}
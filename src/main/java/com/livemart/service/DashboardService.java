@@ -0,0 +1,275 @@
+package com.livemart.service;
+
+import com.livemart.model.Order;
+import com.livemart.model.Product;
+import com.livemart.model.User;
+import com.livemart.model.UserRole;
+import com.livemart.repository.OrderRepository;
+import com.livemart.repository.OrderSummary;
+import com.livemart.repository.ProductRepository;
+import com.livemart.search.CatalogIndex;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-user dashboard figures, built once and served from a bounded LRU cache. A stale entry is
+// still served while a background refresh replaces it, so only a user's first visit waits on the
+// queries. Entries go stale when their TTL passes or when an order or product change affecting
+// the user commits. Depends on repositories only, since ProductService calls it as a CatalogIndex.
+@Service
+public class DashboardService implements CatalogIndex {
+    
+    private static final int RECENT_ORDER_COUNT = 5;
+    private static final int LOW_STOCK_COUNT = 5;
+    
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final SalesRollupService salesRollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlNanos;
+    private final int lowStockThreshold;
+    private final Map<Long, Entry> entries;
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder failedRefreshes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    public DashboardService(OrderRepository orderRepository, ProductRepository productRepository,
+                            SalesRollupService salesRollupService, PlatformTransactionManager transactionManager,
+                            @Value("${livemart.dashboard.cache-max-size:10000}") int maxSize,
+                            @Value("${livemart.dashboard.ttl-seconds:30}") long ttlSeconds,
+                            @Value("${livemart.dashboard.refresh-threads:2}") int refreshThreads,
+                            @Value("${livemart.dashboard.low-stock-threshold:10}") int lowStockThreshold) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.salesRollupService = salesRollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.lowStockThreshold = lowStockThreshold;
+        // Access-ordered, so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.refresher = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public CustomerDashboard getCustomerDashboard(User customer) {
+        return (CustomerDashboard) get(customer);
+    }
+    
+    public SellerDashboard getSellerDashboard(User seller) {
+        return (SellerDashboard) get(seller);
+    }
+    
+    // Refreshes the given users' cached dashboards once the current transaction commits
+    public void refreshAfterCommit(Collection<Long> userIds) {
+        Set<Long> ids = new HashSet<>(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(DashboardService.this::refreshIfCached);
+                }
+            });
+        } else {
+            ids.forEach(this::refreshIfCached);
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("refreshes", refreshes.sum());
+        stats.put("failedRefreshes", failedRefreshes.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+    
+    @Override
+    public void rebuild(Collection<Product> products) {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+    
+    // Product counts and low stock belong to the seller's dashboard. Stock written back by the
+    // inventory ledger arrives here too.
+    @Override
+    public void index(Product product) {
+        if (product.getSeller() != null) {
+            refreshIfCached(product.getSeller().getId());
+        }
+    }
+    
+    // The seller is not known here; their entry catches up when its TTL passes
+    @Override
+    public void remove(Long productId) {
+    }
+    
+    private Object get(User user) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(user.getId());
+        }
+        if (entry == null) {
+            misses.increment();
+            long startedAt = System.nanoTime();
+            Object model = load(user);
+            put(user, model, startedAt);
+            return model;
+        }
+        hits.increment();
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            refresh(user);
+        }
+        return entry.model;
+    }
+    
+    private void refreshIfCached(Long userId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+        }
+        if (entry != null) {
+            refresh(entry.user);
+        }
+    }
+    
+    // At most one refresh per user is queued; a change arriving while it runs queues another
+    private void refresh(User user) {
+        if (!refreshing.add(user.getId())) {
+            return;
+        }
+        refresher.execute(() -> {
+            refreshing.remove(user.getId());
+            try {
+                long startedAt = System.nanoTime();
+                put(user, load(user), startedAt);
+                refreshes.increment();
+            } catch (Exception e) {
+                failedRefreshes.increment();
+                System.err.println("Dashboard refresh failed for user " + user.getId() + ": " + e.getMessage());
+            }
+        });
+    }
+    
+    // Keeps whichever load started last, in case two refreshes for the same user overlap
+    private void put(User user, Object model, long startedAt) {
+        synchronized (entries) {
+            Entry current = entries.get(user.getId());
+            if (current == null || startedAt - current.startedAt > 0) {
+                entries.put(user.getId(), new Entry(user, model, startedAt, startedAt + ttlNanos));
+            }
+        }
+    }
+    
+    private Object load(User user) {
+        return transactionTemplate.execute(status ->
+            user.getRole() == UserRole.CUSTOMER ? loadCustomerDashboard(user) : loadSellerDashboard(user));
+    }
+    
+    private CustomerDashboard loadCustomerDashboard(User customer) {
+        CustomerDashboard dashboard = new CustomerDashboard();
+        dashboard.orderCount = orderRepository.countByUser(customer);
+        dashboard.recentOrders = orderRepository.findSummariesByUserId(customer.getId(),
+            PageRequest.of(0, RECENT_ORDER_COUNT));
+        return dashboard;
+    }
+    
+    private SellerDashboard loadSellerDashboard(User seller) {
+        SellerDashboard dashboard = new SellerDashboard();
+        dashboard.productCount = productRepository.countBySeller(seller);
+        dashboard.orderCount = orderRepository.countSellerOrders(seller);
+        dashboard.sales = salesRollupService.getSummary(seller);
+        dashboard.recentOrders = orderRepository.findSellerOrders(seller, null, null, null,
+            PageRequest.of(0, RECENT_ORDER_COUNT));
+        dashboard.lowStockProducts = productRepository.findLowStock(seller, lowStockThreshold,
+            PageRequest.of(0, LOW_STOCK_COUNT));
+        return dashboard;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+    
+    private static class Entry {
+        
+        final User user;
+        final Object model;
+        final long startedAt;
+        final long expiresAt;
+        
+        Entry(User user, Object model, long startedAt, long expiresAt) {
+            this.user = user;
+            this.model = model;
+            this.startedAt = startedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    public static class CustomerDashboard {
+        
+        private long orderCount;
+        private List<OrderSummary> recentOrders;
+        
+        public long getOrderCount() { return orderCount; }
+        
+        public List<OrderSummary> getRecentOrders() { return recentOrders; }
+    }
+    
+    public static class SellerDashboard {
+        
+        private long productCount;
+        private long orderCount;
+        private SalesRollupService.SalesSummary sales;
+        private List<Order> recentOrders;
+        private List<Product> lowStockProducts;
+        
+        public long getProductCount() { return productCount; }
+        
+        public long getOrderCount() { return orderCount; }
+        
+        public SalesRollupService.SalesSummary getSales() { return sales; }
+        
+        public List<Order> getRecentOrders() { return recentOrders; }
+        
+        public List<Product> getLowStockProducts() { return lowStockProducts; }
+    }
+}
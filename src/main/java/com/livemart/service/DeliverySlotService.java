@@ -0,0 +1,304 @@
+package com.livemart.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Limits how many orders each seller has to deliver per day, and optionally per day and pincode.
+// Counters live in memory and are taken with compare-and-set at checkout, like InventoryLedger.
+// A counter is loaded from delivery_slots the first time it is touched, or counted from orders
+// if it has no row yet, and changed counters are written back in batches by a background thread.
+// As with stock, only bookings whose order committed are written back.
+// Only valid while this is the single node taking bookings.
+@Service
+public class DeliverySlotService {
+    
+    private static final String ANY_PINCODE = "*";
+    private static final DateTimeFormatter LABEL_FORMAT = DateTimeFormatter.ofPattern("EEE, dd MMM");
+    
+    private static final String COUNT_SQL =
+        "SELECT COUNT(DISTINCT o.id) FROM orders o JOIN order_items i ON i.order_id = o.id " +
+        "JOIN products p ON p.id = i.product_id " +
+        "WHERE p.seller_id = ? AND o.delivery_date = ? AND o.status <> 'CANCELLED'";
+    private static final String UPDATE_SQL = "UPDATE delivery_slots SET booked = ? WHERE slot_key = ?";
+    private static final String INSERT_SQL =
+        "INSERT INTO delivery_slots (slot_key, seller_id, slot_date, pincode, capacity, booked) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final WriteBehind<String> writeBehind = new WriteBehind<>("delivery-slot-writer", this::write);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int dailyCapacity;
+    private final int pincodeCapacity;
+    private final int leadDays;
+    private final int horizonDays;
+    
+    public DeliverySlotService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                               @Value("${livemart.delivery-slots.daily-capacity:20}") int dailyCapacity,
+                               @Value("${livemart.delivery-slots.pincode-capacity:0}") int pincodeCapacity,
+                               @Value("${livemart.delivery-slots.lead-days:1}") int leadDays,
+                               @Value("${livemart.delivery-slots.horizon-days:14}") int horizonDays,
+                               @Value("${livemart.delivery-slots.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dailyCapacity = dailyCapacity;
+        this.pincodeCapacity = pincodeCapacity;
+        this.leadDays = leadDays;
+        this.horizonDays = horizonDays;
+        writeBehind.start(flushIntervalMs);
+    }
+    
+    // The dates a checkout can choose from, with the fewest slots left among the cart's sellers
+    public List<SlotOption> getAvailableSlots(Collection<Long> sellerIds, String pincode) {
+        List<SlotOption> options = new ArrayList<>();
+        for (LocalDate date = firstDate(); !date.isAfter(lastDate()); date = date.plusDays(1)) {
+            int remaining = Integer.MAX_VALUE;
+            for (String key : keys(sellerIds, date, pincode)) {
+                remaining = Math.min(remaining, slot(key).remaining());
+            }
+            options.add(new SlotOption(date, remaining == Integer.MAX_VALUE ? 0 : remaining));
+        }
+        return options;
+    }
+    
+    // Books one delivery on date with each seller, as part of the current transaction
+    public void reserve(Collection<Long> sellerIds, LocalDate date, String pincode) {
+        if (date == null || date.isBefore(firstDate()) || date.isAfter(lastDate())) {
+            throw new RuntimeException("Please choose a delivery date between " + firstDate() + " and " + lastDate());
+        }
+        if (!tryReserve(sellerIds, date, pincode)) {
+            throw new RuntimeException("No delivery slots left on " + date + ". Please choose another date.");
+        }
+    }
+    
+    // Books the first date on or after from that every seller still has room on
+    public LocalDate reserveFirstAvailable(Collection<Long> sellerIds, LocalDate from, String pincode) {
+        for (LocalDate date = from; date.isBefore(from.plusDays(horizonDays)); date = date.plusDays(1)) {
+            if (tryReserve(sellerIds, date, pincode)) {
+                return date;
+            }
+        }
+        throw new RuntimeException("No delivery slots available in the next " + horizonDays + " days");
+    }
+    
+    // Hands a cancelled order's bookings back once the cancellation commits
+    public void release(Collection<Long> sellerIds, LocalDate date, String pincode) {
+        if (date == null || date.isBefore(LocalDate.now())) {
+            return;
+        }
+        List<String> keys = keys(sellerIds, date, pincode);
+        onCompletion(committed -> {
+            if (committed) {
+                keys.forEach(key -> {
+                    slot(key).release();
+                    writeBehind.markDirty(key);
+                });
+            }
+        });
+    }
+    
+    public void flush() {
+        writeBehind.flush();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        writeBehind.shutdown();
+    }
+    
+    private void write(List<String> dirtyKeys) {
+        List<String> keys = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (String key : dirtyKeys) {
+            Slot slot = slots.get(key);
+            if (slot != null) {
+                keys.add(key);
+                rows.add(new Object[] { slot.committed.get(), key });
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    inserts.add(insertArgs(keys.get(i)));
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+        });
+        evictPastDays();
+    }
+    
+    private boolean tryReserve(Collection<Long> sellerIds, LocalDate date, String pincode) {
+        List<String> taken = new ArrayList<>();
+        for (String key : keys(sellerIds, date, pincode)) {
+            if (!slot(key).take()) {
+                taken.forEach(takenKey -> slot(takenKey).putBack());
+                return false;
+            }
+            taken.add(key);
+        }
+        // Only persisted once the order commits; a rollback hands the slots back
+        onCompletion(committed -> taken.forEach(key -> {
+            if (committed) {
+                slot(key).commit();
+                writeBehind.markDirty(key);
+            } else {
+                slot(key).putBack();
+            }
+        }));
+        return true;
+    }
+    
+    private List<String> keys(Collection<Long> sellerIds, LocalDate date, String pincode) {
+        boolean byPincode = pincodeCapacity > 0 && pincode != null && !pincode.isBlank();
+        List<String> keys = new ArrayList<>();
+        for (Long sellerId : new TreeSet<>(sellerIds)) {
+            keys.add(sellerId + ":" + date + ":" + ANY_PINCODE);
+            if (byPincode) {
+                keys.add(sellerId + ":" + date + ":" + pincode.trim());
+            }
+        }
+        return keys;
+    }
+    
+    private Slot slot(String key) {
+        return slots.computeIfAbsent(key, this::load);
+    }
+    
+    private Slot load(String key) {
+        String[] parts = key.split(":", 3);
+        List<Slot> stored = jdbcTemplate.query("SELECT capacity, booked FROM delivery_slots WHERE slot_key = ?",
+            (rs, rowNum) -> new Slot(rs.getInt(1), rs.getInt(2)), key);
+        if (!stored.isEmpty()) {
+            return stored.get(0);
+        }
+        // No row yet: start from the orders already booked for that day
+        Long sellerId = Long.valueOf(parts[0]);
+        Date date = Date.valueOf(LocalDate.parse(parts[1]));
+        Integer booked = ANY_PINCODE.equals(parts[2])
+            ? jdbcTemplate.queryForObject(COUNT_SQL, Integer.class, sellerId, date)
+            : jdbcTemplate.queryForObject(COUNT_SQL + " AND o.delivery_pincode = ?", Integer.class, sellerId, date, parts[2]);
+        return new Slot(ANY_PINCODE.equals(parts[2]) ? dailyCapacity : pincodeCapacity, booked != null ? booked : 0);
+    }
+    
+    private Object[] insertArgs(String key) {
+        String[] parts = key.split(":", 3);
+        Slot slot = slots.get(key);
+        return new Object[] {
+            key,
+            Long.valueOf(parts[0]),
+            Date.valueOf(LocalDate.parse(parts[1])),
+            ANY_PINCODE.equals(parts[2]) ? null : parts[2],
+            slot.capacity,
+            slot.committed.get()
+        };
+    }
+    
+    // Days that have passed can no longer be booked, so their counters only take up memory
+    private void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        slots.keySet().removeIf(key -> !writeBehind.isDirty(key) && LocalDate.parse(key.split(":", 3)[1]).isBefore(today));
+    }
+    
+    private LocalDate firstDate() {
+        return LocalDate.now().plusDays(leadDays);
+    }
+    
+    private LocalDate lastDate() {
+        return firstDate().plusDays(horizonDays - 1);
+    }
+    
+    private void onCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            action.accept(true);
+        }
+    }
+    
+    // booked counts every delivery taken, including those whose order hasn't committed yet, and
+    // decides whether another fits; committed is what delivery_slots should hold
+    private static class Slot {
+        
+        final int capacity;
+        final AtomicInteger booked;
+        final AtomicInteger committed;
+        
+        Slot(int capacity, int booked) {
+            this.capacity = capacity;
+            this.booked = new AtomicInteger(booked);
+            this.committed = new AtomicInteger(booked);
+        }
+        
+        boolean take() {
+            while (true) {
+                int current = booked.get();
+                if (current >= capacity) {
+                    return false;
+                }
+                if (booked.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+        
+        // The taking order rolled back
+        void putBack() {
+            booked.updateAndGet(current -> Math.max(0, current - 1));
+        }
+        
+        void commit() {
+            committed.incrementAndGet();
+        }
+        
+        // A committed order was cancelled
+        void release() {
+            booked.updateAndGet(current -> Math.max(0, current - 1));
+            committed.updateAndGet(current -> Math.max(0, current - 1));
+        }
+        
+        int remaining() {
+            return Math.max(0, capacity - booked.get());
+        }
+    }
+    
+    public static class SlotOption {
+        
+        private final LocalDate date;
+        private final int remaining;
+        
+        public SlotOption(LocalDate date, int remaining) {
+            this.date = date;
+            this.remaining = remaining;
+        }
+        
+        public LocalDate getDate() { return date; }
+        
+        public int getRemaining() { return remaining; }
+        
+        public boolean isAvailable() { return remaining > 0; }
+        
+        public String getLabel() { return date.format(LABEL_FORMAT); }
+    }
+}
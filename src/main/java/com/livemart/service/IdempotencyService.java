@@ -0,0 +1,114 @@
+package com.livemart.service;
+
+import com.livemart.model.IdempotencyKey;
+import com.livemart.model.Order;
+import com.livemart.model.User;
+import com.livemart.repository.IdempotencyKeyRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Makes order placement safe to retry. A request carrying a key the user has already used gets the
+// order that key created. The key row is inserted, by primary key, at the start of the order
+// transaction, so of several concurrent requests with the same key only one can commit; the
+// others fail on the insert, roll back, and are answered from the winner's row.
+@Service
+public class IdempotencyService {
+    
+    // Longer client keys are stored as their SHA-256, so the user id prefix plus the key always fits
+    // the 200 character column
+    private static final int MAX_CLIENT_KEY_LENGTH = 100;
+    
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final ScheduledExecutorService purger;
+    
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository, TransactionTemplate transactionTemplate,
+                              @Value("${livemart.idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-key-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purgeQuietly, 10, 10, TimeUnit.MINUTES);
+    }
+    
+    // Must not be called inside a transaction: a losing duplicate has to roll back its whole attempt
+    public Order placeOnce(String clientKey, User user, Function<String, Order> placeOrder) {
+        if (clientKey == null || clientKey.isBlank()) {
+            return placeOrder.apply(null);
+        }
+        String key = user.getId() + ":" + (clientKey.length() <= MAX_CLIENT_KEY_LENGTH ? clientKey : sha256(clientKey));
+        Optional<Order> existing = findOrder(key);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            return placeOrder.apply(key);
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            return findOrder(key)
+                .orElseThrow(() -> new RuntimeException("This order is already being processed"));
+        }
+    }
+    
+    // Called first thing in the order transaction; the caller sets the order once it is saved
+    @Transactional(propagation = Propagation.MANDATORY)
+    public IdempotencyKey claim(String key, User user) {
+        return idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(key, user, LocalDateTime.now().plus(ttl)));
+    }
+    
+    private Optional<Order> findOrder(String key) {
+        return transactionTemplate.execute(status -> {
+            Optional<IdempotencyKey> found = idempotencyKeyRepository.findWithOrderByKey(key);
+            if (found.isPresent() && found.get().getExpiresAt().isBefore(LocalDateTime.now())) {
+                idempotencyKeyRepository.delete(found.get());
+                return Optional.<Order>empty();
+            }
+            return found.map(IdempotencyKey::getOrder);
+        });
+    }
+    
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+    
+    private void purgeQuietly() {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                idempotencyKeyRepository.deleteExpired(LocalDateTime.now()));
+        } catch (Exception e) {
+            System.err.println("Idempotency key purge failed: " + e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+}
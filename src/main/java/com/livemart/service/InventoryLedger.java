@@ -0,0 +1,185 @@
+package com.livemart.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Authoritative stock counts for this node. Each product's count is loaded from
+// products.stock_quantity the first time it is touched (so a restart recovers from the database)
+// and from then on is changed with compare-and-set, without touching the database. Changed counts
+// are written back to the products table in batches by a background thread; only committed orders
+// are written back, so a reservation that later rolls back never reaches the database.
+// Only valid while this is the single node writing stock. Off by default: a crash loses the committed
+// decrements not yet written back, and the restart then loads (and sells) that stock again.
+@Component
+public class InventoryLedger {
+    
+    private final ConcurrentHashMap<Long, Stock> stock = new ConcurrentHashMap<>();
+    private final List<Consumer<Collection<Long>>> flushListeners = new ArrayList<>();
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final WriteBehind<Long> writeBehind = new WriteBehind<>("inventory-ledger-writer", this::write);
+    
+    public InventoryLedger(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           @Value("${livemart.inventory-ledger.enabled:false}") boolean enabled,
+                           @Value("${livemart.inventory-ledger.flush-interval-ms:250}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        if (enabled) {
+            writeBehind.start(flushIntervalMs);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    // Called with the ids of products whose stock was just written back
+    public void addFlushListener(Consumer<Collection<Long>> listener) {
+        flushListeners.add(listener);
+    }
+    
+    // Takes quantity out of the available count; false if there is not enough
+    public boolean reserve(Long productId, int quantity) {
+        return counter(productId).reserve(quantity);
+    }
+    
+    // The reservation's order committed, so the taken quantity can be written back
+    public void commit(Long productId, int quantity) {
+        counter(productId).commit(quantity);
+        writeBehind.markDirty(productId);
+    }
+    
+    // The reservation's order rolled back; nothing was written back for it
+    public void release(Long productId, int quantity) {
+        counter(productId).release(quantity);
+    }
+    
+    public void add(Long productId, int quantity) {
+        counter(productId).add(quantity);
+        writeBehind.markDirty(productId);
+    }
+    
+    public void set(Long productId, int quantity) {
+        counter(productId).set(quantity);
+        writeBehind.markDirty(productId);
+    }
+    
+    public void forget(Long productId) {
+        stock.remove(productId);
+        writeBehind.forget(productId);
+    }
+    
+    // Current count if this product has been loaded, otherwise null (the database value is current)
+    public Integer peek(Long productId) {
+        Stock counts = stock.get(productId);
+        return counts != null ? Math.max(0, counts.available.get()) : null;
+    }
+    
+    public void flush() {
+        writeBehind.flush();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        writeBehind.stop();
+        // The listeners' beans may already be gone
+        flushListeners.clear();
+        writeBehind.shutdown();
+    }
+    
+    private void write(List<Long> ids) {
+        List<Long> written = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long id : ids) {
+            Stock counts = stock.get(id);
+            if (counts != null) {
+                written.add(id);
+                rows.add(new Object[] { counts.committed.get(), id });
+            }
+        }
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.batchUpdate("UPDATE products SET stock_quantity = ? WHERE id = ?", rows));
+        flushListeners.forEach(listener -> listener.accept(written));
+    }
+    
+    private Stock counter(Long productId) {
+        Stock counts = stock.computeIfAbsent(productId, this::load);
+        if (counts == null) {
+            throw new RuntimeException("Product not found");
+        }
+        return counts;
+    }
+    
+    private Stock load(Long productId) {
+        try {
+            Integer quantity = jdbcTemplate.queryForObject(
+                "SELECT stock_quantity FROM products WHERE id = ?", Integer.class, productId);
+            return new Stock(quantity != null ? quantity : 0);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+    
+    // available is what checkouts can still take; committed is what the products table should
+    // hold, which still includes reservations whose order hasn't committed yet. Reserving and
+    // releasing only move available, so checkouts never wait on the lock.
+    private static class Stock {
+        
+        final AtomicInteger available;
+        final AtomicInteger committed;
+        
+        Stock(int quantity) {
+            this.available = new AtomicInteger(quantity);
+            this.committed = new AtomicInteger(quantity);
+        }
+        
+        boolean reserve(int quantity) {
+            while (true) {
+                int current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+        
+        void release(int quantity) {
+            available.addAndGet(quantity);
+        }
+        
+        synchronized void commit(int quantity) {
+            committed.addAndGet(-quantity);
+        }
+        
+        synchronized void add(int quantity) {
+            committed.addAndGet(quantity);
+            available.addAndGet(quantity);
+        }
+        
+        // Open reservations stay taken from the new count
+        synchronized void set(int quantity) {
+            while (true) {
+                int current = available.get();
+                int pending = committed.get() - current;
+                if (available.compareAndSet(current, quantity - pending)) {
+                    committed.set(quantity);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -1,49 +1,93 @@
 package com.livemart.service;
 
 import com.livemart.model.*;
+import com.livemart.repository.OrderLineSummary;
 import com.livemart.repository.OrderRepository;
+import com.livemart.repository.OrderSummary;
+import com.livemart.repository.SeekCursor;
+import com.livemart.repository.SeekPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class OrderService {
     
+    // Longest list of lines a seller's notification spells out; longer carts are summarized
+    private static final int MAX_LISTED_LINES_LENGTH = 200;
+    
     private final OrderRepository orderRepository;
     private final CartService cartService;
     private final ProductService productService;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final IdempotencyService idempotencyService;
+    private final SalesRollupService salesRollupService;
+    private final DashboardService dashboardService;
+    private final DeliverySlotService deliverySlotService;
+    private final TransactionTemplate transactionTemplate;
+    private final int statusUpdateAttempts;
     
     public OrderService(OrderRepository orderRepository, CartService cartService, 
-                       ProductService productService, NotificationService notificationService) {
+                       ProductService productService, OutboxService outboxService,
+                       OrderNumberGenerator orderNumberGenerator, IdempotencyService idempotencyService,
+                       SalesRollupService salesRollupService, DashboardService dashboardService,
+                       DeliverySlotService deliverySlotService, TransactionTemplate transactionTemplate,
+                       @Value("${livemart.order-status.max-attempts:3}") int statusUpdateAttempts) {
         this.orderRepository = orderRepository;
         this.cartService = cartService;
         this.productService = productService;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.idempotencyService = idempotencyService;
+        this.salesRollupService = salesRollupService;
+        this.dashboardService = dashboardService;
+        this.deliverySlotService = deliverySlotService;
+        this.transactionTemplate = transactionTemplate;
+        this.statusUpdateAttempts = statusUpdateAttempts;
     }
     
     public Order createOrder(User user, PaymentMethod paymentMethod, String specialInstructions, LocalDate deliveryDate) {
-        Cart cart = cartService.getOrCreateCart(user);
+        return createOrder(user, paymentMethod, specialInstructions, deliveryDate, null);
+    }
+    
+    // With an idempotency key (see IdempotencyService.placeOnce), the key is claimed before anything
+    // else so a concurrent duplicate fails before touching stock
+    public Order createOrder(User user, PaymentMethod paymentMethod, String specialInstructions, LocalDate deliveryDate,
+                             String idempotencyKey) {
+        IdempotencyKey claim = idempotencyKey != null ? idempotencyService.claim(idempotencyKey, user) : null;
+        
+        // Lines, products and sellers come back in one query, and stock for all lines is taken in one batch
+        Cart cart = cartService.getCartForCheckout(user);
         
         if (cart.getItems().isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
         
         Order order = new Order();
-        order.setOrderNumber("ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        order.setOrderNumber(orderNumberGenerator.next("ORD-"));
         order.setUser(user);
         order.setStatus(OrderStatus.PENDING);
         order.setPaymentMethod(paymentMethod);
         order.setPaymentCompleted(paymentMethod == PaymentMethod.ONLINE || paymentMethod == PaymentMethod.UPI || paymentMethod == PaymentMethod.CREDIT_CARD || paymentMethod == PaymentMethod.DEBIT_CARD || paymentMethod == PaymentMethod.NET_BANKING);
         order.setSpecialInstructions(specialInstructions);
         order.setDeliveryDate(deliveryDate);
+        order.setDeliveryPincode(user.getPincode());
         
         Double totalAmount = 0.0;
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<User, List<CartItem>> itemsBySeller = new LinkedHashMap<>();
         
         for (CartItem cartItem : cart.getItems()) {
             OrderItem orderItem = new OrderItem();
@@ -55,50 +99,65 @@ public class OrderService {
             order.getOrderItems().add(orderItem);
             totalAmount += cartItem.getProduct().getPrice() * cartItem.getQuantity();
             
-            // Reduce stock
-            productService.reduceStock(cartItem.getProduct().getId(), cartItem.getQuantity());
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+            itemsBySeller.computeIfAbsent(cartItem.getProduct().getSeller(), seller -> new ArrayList<>()).add(cartItem);
         }
         
+        // Reduce stock
+        productService.reduceStock(quantities);
+        
+        // One delivery per seller on the chosen day
+        Set<Long> sellerIds = itemsBySeller.keySet().stream().map(User::getId).collect(Collectors.toSet());
+        deliverySlotService.reserve(sellerIds, deliveryDate, user.getPincode());
+        
         order.setTotalAmount(totalAmount);
         Order savedOrder = orderRepository.save(order);
+        if (claim != null) {
+            claim.setOrder(savedOrder);
+        }
         
-        // Notify all sellers after order is saved
-        for (CartItem cartItem : cart.getItems()) {
-            User seller = cartItem.getProduct().getSeller();
+        // One notification per seller covering all of their lines
+        itemsBySeller.forEach((seller, items) -> {
             String title = "New Order Received";
+            String lines = summarizeLines(items);
+            double amount = items.stream()
+                .mapToDouble(item -> item.getProduct().getPrice() * item.getQuantity())
+                .sum();
             String message = String.format(
-                "Order #%s: Customer %s ordered %s (Qty: %d). " +
+                "Order #%s: Customer %s ordered %s. " +
                 "Requested delivery: %s. Amount: ₹%.2f",
                 savedOrder.getOrderNumber(),
                 user.getFullName(),
-                cartItem.getProduct().getName(),
-                cartItem.getQuantity(),
+                lines,
                 deliveryDate.toString(),
-                cartItem.getProduct().getPrice() * cartItem.getQuantity()
+                amount
             );
-            notificationService.createNotification(seller, title, message, NotificationType.ORDER_RECEIVED, savedOrder.getId());
-        }
+            outboxService.enqueueNotification(seller, title, message, NotificationType.ORDER_RECEIVED, savedOrder.getId());
+        });
         
         // Clear cart after order
-        cartService.clearCart(user);
+        cart.getItems().clear();
+        
+        // Last, so the sellers' rollup rows stay locked for as little of the transaction as possible
+        salesRollupService.recordOrderPlaced(savedOrder);
+        refreshDashboards(savedOrder);
         
         return savedOrder;
     }
     
     // B2B Order creation (for marketplace)
     public Order createB2BOrder(User buyer, Product product, Integer quantity, String specialInstructions) {
-        if (product.getStockQuantity() < quantity) {
-            throw new RuntimeException("Insufficient stock available");
-        }
-        
         Order order = new Order();
-        order.setOrderNumber("B2B-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        order.setOrderNumber(orderNumberGenerator.next("B2B-"));
         order.setUser(buyer);
         order.setStatus(OrderStatus.PENDING);
         order.setPaymentMethod(PaymentMethod.CASH_ON_DELIVERY);
         order.setPaymentCompleted(false);
         order.setSpecialInstructions(specialInstructions);
-        order.setDeliveryDate(LocalDate.now().plusDays(7)); // Default 7 days for B2B
+        // A week out by default, or the first day after that the wholesaler still has a slot
+        order.setDeliveryPincode(buyer.getPincode());
+        order.setDeliveryDate(deliverySlotService.reserveFirstAvailable(List.of(product.getSeller().getId()),
+            LocalDate.now().plusDays(7), buyer.getPincode()));
         
         OrderItem orderItem = new OrderItem();
         orderItem.setOrder(order);
@@ -125,13 +184,52 @@ public class OrderService {
             savedOrder.getTotalAmount(),
             savedOrder.getDeliveryDate().toString()
         );
-        notificationService.createNotification(product.getSeller(), title, message, NotificationType.ORDER_RECEIVED, savedOrder.getId());
+        outboxService.enqueueNotification(product.getSeller(), title, message, NotificationType.ORDER_RECEIVED, savedOrder.getId());
+        
+        salesRollupService.recordOrderPlaced(savedOrder);
+        refreshDashboards(savedOrder);
         
         return savedOrder;
     }
     
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    // Every line, or "N items, including ..." with as many lines as fit once the cart is too big
+    // to list in a notification
+    private String summarizeLines(List<CartItem> items) {
+        List<String> lines = items.stream()
+            .map(item -> String.format("%s (Qty: %d)", item.getProduct().getName(), item.getQuantity()))
+            .toList();
+        String all = String.join(", ", lines);
+        if (all.length() <= MAX_LISTED_LINES_LENGTH) {
+            return all;
+        }
+        StringBuilder listed = new StringBuilder();
+        for (String line : lines) {
+            if (listed.length() + line.length() + 2 > MAX_LISTED_LINES_LENGTH) {
+                break;
+            }
+            if (listed.length() > 0) {
+                listed.append(", ");
+            }
+            listed.append(line);
+        }
+        return listed.length() == 0 ? items.size() + " items" : items.size() + " items, including " + listed;
+    }
+    
+    // Orders that include the seller's products, newest first
+    public SeekPage<Order> getSellerOrders(User seller, OrderStatus status, SeekCursor after, int size) {
+        // Fetch one extra row to learn whether another page exists
+        List<Order> rows = orderRepository.findSellerOrders(seller, status,
+            after != null ? after.getCreatedAt() : null, after != null ? after.getId() : null,
+            PageRequest.of(0, size + 1));
+        List<Order> content = rows.size() > size ? rows.subList(0, size) : rows;
+        if (!content.isEmpty()) {
+            orderRepository.fetchOrderItems(content);
+        }
+        if (rows.size() <= size) {
+            return new SeekPage<>(content, null);
+        }
+        Order last = content.get(size - 1);
+        return new SeekPage<>(content, new SeekCursor(last.getCreatedAt(), last.getId()).encode());
     }
     
     public List<Order> getUserOrders(User user) {
@@ -143,11 +241,82 @@ public class OrderService {
             .orElseThrow(() -> new RuntimeException("Order not found"));
     }
     
-    public Order updateOrderStatus(Long orderId, OrderStatus status) {
+    // Customer order list as projections: one query for the orders and one for all of their lines
+    @Transactional(readOnly = true)
+    public List<OrderSummary> getUserOrderSummaries(User user) {
+        return attachLines(orderRepository.findSummariesByUserId(user.getId()));
+    }
+    
+    @Transactional(readOnly = true)
+    public OrderSummary getOrderSummary(Long id) {
+        OrderSummary summary = orderRepository.findSummaryById(id)
+            .orElseThrow(() -> new RuntimeException("Order not found"));
+        attachLines(List.of(summary));
+        return summary;
+    }
+    
+    private List<OrderSummary> attachLines(List<OrderSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        Map<Long, OrderSummary> byId = new HashMap<>();
+        for (OrderSummary summary : summaries) {
+            byId.put(summary.getId(), summary);
+        }
+        for (OrderLineSummary line : orderRepository.findLineSummariesByOrderIds(byId.keySet())) {
+            byId.get(line.getOrderId()).getOrderItems().add(line);
+        }
+        return summaries;
+    }
+    
+    // Each attempt runs in its own transaction. Concurrent updates to one order are settled by its
+    // version: the later commit fails, and is retried against the order as it now stands, where
+    // the requested transition may no longer be allowed.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Order updateOrderStatus(User seller, Long orderId, OrderStatus status) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(tx -> applyStatusChange(seller, orderId, status));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= statusUpdateAttempts) {
+                    throw new RuntimeException("This order was just updated by someone else. Please try again.");
+                }
+                backOff(attempt);
+            }
+        }
+    }
+    
+    private Order applyStatusChange(User seller, Long orderId, OrderStatus status) {
         Order order = getOrderById(orderId);
+        orderRepository.fetchOrderItems(List.of(order));
+        boolean sellsInOrder = order.getOrderItems().stream()
+            .map(item -> item.getProduct().getSeller())
+            .anyMatch(itemSeller -> itemSeller != null && itemSeller.getId().equals(seller.getId()));
+        if (!sellsInOrder) {
+            throw new RuntimeException("Order not found");
+        }
+        
         OrderStatus oldStatus = order.getStatus();
+        if (oldStatus == status) {
+            // Already applied, e.g. by a resubmitted form
+            return order;
+        }
+        if (!oldStatus.canTransitionTo(status)) {
+            throw new RuntimeException("Order #" + order.getOrderNumber() + " cannot move from " + oldStatus + " to " + status);
+        }
         order.setStatus(status);
-        Order updatedOrder = orderRepository.save(order);
+        if (status == OrderStatus.CANCELLED) {
+            Set<Long> sellerIds = order.getOrderItems().stream()
+                .map(item -> item.getProduct().getSeller())
+                .filter(Objects::nonNull)
+                .map(User::getId)
+                .collect(Collectors.toSet());
+            deliverySlotService.release(sellerIds, order.getDeliveryDate(), order.getDeliveryPincode());
+        }
+        // Flushed here so a version conflict surfaces before the side effects below are queued
+        Order updatedOrder = orderRepository.saveAndFlush(order);
+        salesRollupService.recordStatusChange(order, oldStatus, status);
+        refreshDashboards(order);
         
         // Notify customer about status change
         String title = "Order Status Update";
@@ -163,8 +332,29 @@ public class OrderService {
             message += String.format(" Expected delivery: %s", order.getDeliveryDate().toString());
         }
         
-        notificationService.createNotification(order.getUser(), title, message, NotificationType.ORDER_UPDATE, order.getId());
+        outboxService.enqueueNotification(order.getUser(), title, message, NotificationType.ORDER_UPDATE, order.getId());
         
         return updatedOrder;
     }
+    
+    // The buyer's and every seller's dashboard figures change with the order
+    private void refreshDashboards(Order order) {
+        Set<Long> userIds = new HashSet<>();
+        userIds.add(order.getUser().getId());
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getProduct().getSeller() != null) {
+                userIds.add(item.getProduct().getSeller().getId());
+            }
+        }
+        dashboardService.refreshAfterCommit(userIds);
+    }
+    
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50) * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Order update was interrupted");
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package com.livemart.service;
+
+import com.livemart.model.Notification;
+import com.livemart.model.NotificationType;
+import com.livemart.model.OutboxEvent;
+import com.livemart.model.User;
+import com.livemart.repository.NotificationRepository;
+import com.livemart.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Transactional outbox for order side effects. Callers record an event inside their own transaction,
+// which costs one batched insert; a background thread turns pending events into notifications in
+// batches. An event is marked dispatched in the same transaction that writes its notification, and
+// is retried until that commits.
+@Service
+public class OutboxService {
+    
+    // Length of OutboxEvent.message and Notification.message
+    private static final int MAX_MESSAGE_LENGTH = 500;
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final NotificationRepository notificationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+    private final ScheduledExecutorService dispatcher;
+    
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final AtomicLong lastDispatchLagMillis = new AtomicLong();
+    
+    public OutboxService(OutboxEventRepository outboxEventRepository, NotificationRepository notificationRepository,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${livemart.outbox.batch-size:100}") int batchSize,
+                         @Value("${livemart.outbox.poll-interval-ms:500}") long pollIntervalMs,
+                         @Value("${livemart.outbox.retention-hours:24}") long retentionHours) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.notificationRepository = notificationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.retention = Duration.ofHours(retentionHours);
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleWithFixedDelay(this::dispatchQuietly, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        dispatcher.scheduleWithFixedDelay(this::purgeQuietly, 10, 10, TimeUnit.MINUTES);
+    }
+    
+    // Must join the caller's transaction, otherwise the event and the change could diverge
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueNotification(User recipient, String title, String message, NotificationType type, Long relatedOrderId) {
+        // Cut rather than fail the caller's transaction over a long product or customer name
+        if (message != null && message.length() > MAX_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_MESSAGE_LENGTH - 3) + "...";
+        }
+        outboxEventRepository.save(new OutboxEvent(recipient, title, message, type, relatedOrderId));
+    }
+    
+    // Dispatches pending events until none are left; returns how many were dispatched
+    public int dispatchPending() {
+        int total = 0;
+        while (true) {
+            Integer count = transactionTemplate.execute(status -> dispatchBatch());
+            dispatched.add(count);
+            total += count;
+            if (count < batchSize) {
+                return total;
+            }
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        LocalDateTime oldestPending = outboxEventRepository.findOldestPendingCreatedAt();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", outboxEventRepository.countByDispatchedAtIsNull());
+        stats.put("oldestPendingAgeMillis",
+            oldestPending == null ? 0 : Duration.between(oldestPending, LocalDateTime.now()).toMillis());
+        stats.put("lastDispatchLagMillis", lastDispatchLagMillis.get());
+        stats.put("dispatched", dispatched.sum());
+        stats.put("failedBatches", failedBatches.sum());
+        return stats;
+    }
+    
+    private int dispatchBatch() {
+        List<OutboxEvent> events = outboxEventRepository.findByDispatchedAtIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> notifications = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            Notification notification = new Notification(event.getRecipient(), event.getTitle(), event.getMessage(),
+                event.getType(), event.getRelatedOrderId());
+            notification.setCreatedAt(event.getCreatedAt());
+            notifications.add(notification);
+            event.setDispatchedAt(now);
+        }
+        notificationRepository.saveAll(notifications);
+        lastDispatchLagMillis.set(Duration.between(events.get(0).getCreatedAt(), now).toMillis());
+        return events.size();
+    }
+    
+    private void dispatchQuietly() {
+        try {
+            dispatchPending();
+        } catch (Exception e) {
+            failedBatches.increment();
+            System.err.println("Outbox dispatch failed, will retry: " + e.getMessage());
+        }
+    }
+    
+    private void purgeQuietly() {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.deleteDispatchedBefore(LocalDateTime.now().minus(retention)));
+        } catch (Exception e) {
+            System.err.println("Outbox purge failed: " + e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+        try {
+            dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dispatchQuietly();
+    }
+}
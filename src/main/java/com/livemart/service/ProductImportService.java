@@ -0,0 +1,285 @@
+package com.livemart.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.livemart.config.IdSequenceInitializer;
+import com.livemart.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Bulk product import from CSV (with a header row) or JSON lines. The file is read line by line,
+// each row is validated as it is read, and valid rows are inserted in JDBC batches.
+@Service
+public class ProductImportService {
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO products (id, name, description, category, price, stock_quantity, image_url, seller_id, " +
+        "available, manufacturing_country, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    
+    private long nextId;
+    private long lastIdInBlock = -1;
+    
+    public ProductImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                ProductService productService, ObjectMapper objectMapper,
+                                @Value("${livemart.import.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+    
+    public ImportResult importProducts(User seller, String filename, InputStream input) throws IOException {
+        boolean jsonLines = filename != null && (filename.endsWith(".jsonl") || filename.endsWith(".ndjson"));
+        ImportResult result = new ImportResult();
+        List<Long> importedIds = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        List<Integer> batchLines = new ArrayList<>(batchSize);
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (!jsonLines && header == null) {
+                    header = parseCsvLine(line);
+                    header.replaceAll(column -> column.trim().toLowerCase());
+                    if (!header.contains("name") || !header.contains("category")
+                            || !header.contains("price") || !header.contains("stockquantity")) {
+                        throw new RuntimeException("CSV header must include name, category, price and stockQuantity");
+                    }
+                    continue;
+                }
+                
+                try {
+                    Map<String, String> fields = jsonLines ? parseJsonLine(line) : toFields(header, parseCsvLine(line));
+                    batch.add(toRow(fields, seller));
+                    batchLines.add(lineNumber);
+                } catch (RuntimeException e) {
+                    result.addError(lineNumber, e.getMessage());
+                    continue;
+                }
+                if (batch.size() >= batchSize) {
+                    flush(batch, batchLines, result, importedIds);
+                }
+            }
+            flush(batch, batchLines, result, importedIds);
+        } finally {
+            // Each batch commits on its own, so rows committed before a failure must still be indexed
+            if (!importedIds.isEmpty()) {
+                productService.indexImportedProducts(importedIds);
+            }
+        }
+        return result;
+    }
+    
+    // Ids of the committed rows are added to importedIds, so exactly those get indexed. A batch the
+    // database rejects is reported against its lines and the import goes on with the next one.
+    private void flush(List<Object[]> batch, List<Integer> batchLines, ImportResult result, List<Long> importedIds) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Object[] row : batch) {
+            row[0] = nextProductId();
+            ids.add((Long) row[0]);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+            importedIds.addAll(ids);
+            result.imported += batch.size();
+        } catch (DataAccessException | TransactionException e) {
+            // Driver messages can go on to quote the whole statement; the first line says what went wrong
+            Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+            String message = cause.getMessage() != null
+                ? cause.getMessage().lines().findFirst().orElse("")
+                : cause.getClass().getSimpleName();
+            result.addBatchError(batchLines.get(0), batchLines.get(batchLines.size() - 1), batch.size(), message);
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+    
+    // Ids come from the same sequence Hibernate uses for Product. Like Hibernate's pooled optimizer,
+    // each value read from the sequence reserves the block of ids ending at that value.
+    private synchronized long nextProductId() {
+        if (nextId > lastIdInBlock) {
+            Long hi = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR products_seq", Long.class);
+            lastIdInBlock = hi;
+            nextId = Math.max(1, hi - IdSequenceInitializer.ALLOCATION_SIZE + 1);
+        }
+        return nextId++;
+    }
+    
+    private Object[] toRow(Map<String, String> fields, User seller) {
+        String name = required(fields, "name");
+        String category = productService.canonicalCategory(required(fields, "category"));
+        String description = blankToNull(fields.get("description"));
+        if (name.length() > 255) {
+            throw new RuntimeException("name is longer than 255 characters");
+        }
+        if (description != null && description.length() > 1000) {
+            throw new RuntimeException("description is longer than 1000 characters");
+        }
+        
+        double price;
+        int stockQuantity;
+        try {
+            price = Double.parseDouble(required(fields, "price"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("price is not a number");
+        }
+        try {
+            stockQuantity = Integer.parseInt(required(fields, "stockquantity"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("stockQuantity is not a whole number");
+        }
+        if (price < 0 || Double.isNaN(price) || Double.isInfinite(price)) {
+            throw new RuntimeException("price must be zero or more");
+        }
+        if (stockQuantity < 0) {
+            throw new RuntimeException("stockQuantity must be zero or more");
+        }
+        
+        String available = blankToNull(fields.get("available"));
+        if (available != null && !available.equalsIgnoreCase("true") && !available.equalsIgnoreCase("false")) {
+            throw new RuntimeException("available must be true or false");
+        }
+        String country = blankToNull(fields.get("manufacturingcountry"));
+        
+        return new Object[] {
+            null, name, description, category, price, stockQuantity, blankToNull(fields.get("imageurl")), seller.getId(),
+            available == null || Boolean.parseBoolean(available), country != null ? country : "India",
+            Timestamp.valueOf(LocalDateTime.now())
+        };
+    }
+    
+    private Map<String, String> parseJsonLine(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new RuntimeException("invalid JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new RuntimeException("expected a JSON object");
+        }
+        Map<String, String> fields = new HashMap<>();
+        node.fields().forEachRemaining(field -> {
+            if (!field.getValue().isNull()) {
+                fields.put(field.getKey().toLowerCase(), field.getValue().asText());
+            }
+        });
+        return fields;
+    }
+    
+    private Map<String, String> toFields(List<String> header, List<String> values) {
+        if (values.size() > header.size()) {
+            throw new RuntimeException("expected " + header.size() + " columns but found " + values.size());
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            fields.put(header.get(i), values.get(i));
+        }
+        return fields;
+    }
+    
+    // RFC 4180 style: comma separated, double quotes around fields, "" for a literal quote.
+    // Quoted fields may not span lines.
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new RuntimeException("unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+    
+    private static String required(Map<String, String> fields, String column) {
+        String value = blankToNull(fields.get(column));
+        if (value == null) {
+            throw new RuntimeException(column + " is required");
+        }
+        return value;
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+    
+    public static class ImportResult {
+        
+        private int imported;
+        private int failed;
+        private final List<String> errors = new ArrayList<>();
+        
+        void addError(int lineNumber, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line " + lineNumber + ": " + message);
+            }
+        }
+        
+        // The whole batch was rolled back, so every row in it counts as failed
+        void addBatchError(int firstLine, int lastLine, int rows, String message) {
+            failed += rows;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Lines " + firstLine + "-" + lastLine + ": batch of " + rows + " rows not saved: " + message);
+            }
+        }
+        
+        public int getImported() { return imported; }
+        
+        public int getFailed() { return failed; }
+        
+        public List<String> getErrors() { return errors; }
+    }
+}
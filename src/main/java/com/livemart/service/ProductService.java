@@ -2,30 +2,92 @@ package com.livemart.service;
 
 import com.livemart.model.Product;
 import com.livemart.model.User;
+import com.livemart.repository.MarketplaceListing;
 import com.livemart.repository.ProductRepository;
+import com.livemart.repository.ProductSpecifications;
+import com.livemart.repository.SeekCursor;
+import com.livemart.repository.SeekPage;
+import com.livemart.search.CatalogIndex;
+import com.livemart.search.CatalogSnapshot;
+import com.livemart.search.CatalogSnapshotIndex;
+import com.livemart.search.CategoryRegistry;
+import com.livemart.search.FacetCounts;
+import com.livemart.search.ProductCache;
+import com.livemart.search.ProductFacetIndex;
+import com.livemart.search.ProductSearchIndex;
+import com.livemart.search.ProductSuggestionIndex;
+import com.livemart.search.ProductTrigramIndex;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
 public class ProductService {
     
+    private static final int IMPORT_INDEX_CHUNK = 1000;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+    
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductTrigramIndex productTrigramIndex;
+    private final ProductSuggestionIndex productSuggestionIndex;
+    private final CategoryRegistry categoryRegistry;
+    private final ProductFacetIndex productFacetIndex;
+    private final CatalogSnapshotIndex catalogSnapshotIndex;
+    private final ProductCache productCache;
+    private final List<CatalogIndex> catalogIndexes;
+    private final InventoryLedger inventoryLedger;
     
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ProductSearchIndex productSearchIndex,
+                         ProductTrigramIndex productTrigramIndex, ProductSuggestionIndex productSuggestionIndex,
+                         CategoryRegistry categoryRegistry, ProductFacetIndex productFacetIndex,
+                         CatalogSnapshotIndex catalogSnapshotIndex, ProductCache productCache,
+                         List<CatalogIndex> catalogIndexes, InventoryLedger inventoryLedger) {
         this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productTrigramIndex = productTrigramIndex;
+        this.productSuggestionIndex = productSuggestionIndex;
+        this.categoryRegistry = categoryRegistry;
+        this.productFacetIndex = productFacetIndex;
+        this.catalogSnapshotIndex = catalogSnapshotIndex;
+        this.productCache = productCache;
+        this.catalogIndexes = catalogIndexes;
+        this.inventoryLedger = inventoryLedger;
+        // Stock written back by the ledger has to reach the cache and the in-stock facets too
+        inventoryLedger.addFlushListener(this::reindexProducts);
     }
     
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        product.setCategory(canonicalCategory(product.getCategory()));
+        Product saved = productRepository.save(product);
+        reindexAfterCommit(saved);
+        return saved;
     }
     
+    // Served from the product cache; the result is a detached copy, so write paths use loadProduct.
+    // Stock comes from the inventory ledger, which can be ahead of the database.
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Product not found"));
+        Product product = productCache.get(id, this::loadProduct);
+        Integer stock = inventoryLedger.peek(id);
+        if (stock != null) {
+            product.setStockQuantity(stock);
+        }
+        return product;
+    }
+    
+    public Map<String, Object> getProductCacheStats() {
+        return productCache.getStats();
     }
     
     public List<Product> getAllProducts() {
@@ -40,84 +102,300 @@ public class ProductService {
         return productRepository.findBySeller(seller);
     }
     
+    public SeekPage<Product> getProductsBySeller(User seller, SeekCursor after, int size) {
+        Specification<Product> spec = Specification.where(ProductSpecifications.soldBy(seller));
+        return seek(spec, after, size);
+    }
+    
+    public long countProductsBySeller(User seller) {
+        return productRepository.countBySeller(seller);
+    }
+    
+    public List<Product> getNewestAvailableProducts(int limit) {
+        return productRepository.findSlice(ProductSpecifications.isAvailable(), NEWEST_FIRST, limit);
+    }
+    
     public List<Product> getProductsByCategory(String category) {
         return productRepository.findByCategory(category);
     }
     
-    public List<Product> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(keyword, keyword);
+    public ProductSuggestionIndex.Suggestion[] suggestProducts(String prefix) {
+        return productSuggestionIndex.suggest(prefix);
     }
     
-    public List<Product> filterProducts(String category, Double minPrice, Double maxPrice, Boolean inStock) {
-        List<Product> products = getAvailableProducts();
-        
-        // Filter by category
-        if (category != null && !category.isEmpty() && !category.equals("all")) {
-            products = products.stream()
-                .filter(p -> p.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
+    public Page<Product> filterProducts(String keyword, String category, Double minPrice, Double maxPrice,
+                                        Boolean inStock, Pageable pageable) {
+        if (keyword == null || keyword.isEmpty()) {
+            return productRepository.findAll(catalogFilter(category, minPrice, maxPrice, inStock), pageable);
         }
         
-        // Filter by price range
-        if (minPrice != null) {
-            products = products.stream()
-                .filter(p -> p.getPrice() >= minPrice)
-                .collect(Collectors.toList());
+        List<Long> rankedIds = searchCandidates(keyword);
+        if (rankedIds.isEmpty()) {
+            return Page.empty(pageable);
         }
-        
-        if (maxPrice != null) {
-            products = products.stream()
-                .filter(p -> p.getPrice() <= maxPrice)
-                .collect(Collectors.toList());
+        // Every keyword match is filtered, and sorted when asked, against the in-memory snapshot
+        // before anything is cut, so filters never miss matches and the page total counts all of them
+        CatalogSnapshot snapshot = catalogSnapshotIndex.current();
+        long[] matchingIds = snapshot.filter(rankedIds, category, minPrice, maxPrice, inStock != null && inStock);
+        if (matchingIds.length == 0) {
+            return Page.empty(pageable);
         }
-        
-        // Filter by stock availability
-        if (inStock != null && inStock) {
-            products = products.stream()
-                .filter(p -> p.getStockQuantity() > 0)
-                .collect(Collectors.toList());
+        if (pageable.getSort().isSorted()) {
+            matchingIds = snapshot.sort(matchingIds, pageable.getSort());
         }
         
-        return products;
+        // Only load the products on the requested page
+        int from = (int) Math.min(pageable.getOffset(), matchingIds.length);
+        int to = Math.min(from + pageable.getPageSize(), matchingIds.length);
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageIds.add(matchingIds[i]);
+        }
+        return new PageImpl<>(findAllInOrder(pageIds), pageable, matchingIds.length);
+    }
+    
+    // Newest-first catalog listing paged by (createdAt, id) so every page costs the same
+    public SeekPage<Product> filterProducts(String category, Double minPrice, Double maxPrice, Boolean inStock,
+                                            SeekCursor after, int size) {
+        return seek(catalogFilter(category, minPrice, maxPrice, inStock), after, size);
+    }
+    
+    private Specification<Product> catalogFilter(String category, Double minPrice, Double maxPrice, Boolean inStock) {
+        return Specification.where(ProductSpecifications.isAvailable())
+            .and(ProductSpecifications.inCategory(canonicalCategory(category)))
+            .and(ProductSpecifications.priceAtLeast(minPrice))
+            .and(ProductSpecifications.priceAtMost(maxPrice))
+            .and(ProductSpecifications.inStock(inStock));
+    }
+    
+    private SeekPage<Product> seek(Specification<Product> spec, SeekCursor after, int size) {
+        // Fetch one extra row to learn whether another page exists
+        List<Product> rows = productRepository.findSlice(spec.and(ProductSpecifications.createdBefore(after)),
+            NEWEST_FIRST, size + 1);
+        if (rows.size() <= size) {
+            return new SeekPage<>(rows, null);
+        }
+        List<Product> content = rows.subList(0, size);
+        Product last = content.get(size - 1);
+        return new SeekPage<>(content, new SeekCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+    
+    // Wholesaler products other than the buyer's own that are available and in stock
+    public Slice<MarketplaceListing> getMarketplaceListings(User buyer, String keyword, String category, Pageable pageable) {
+        String categoryFilter = category == null || category.isEmpty() ? null : category;
+        if (keyword == null || keyword.isEmpty()) {
+            return productRepository.findMarketplaceListings(buyer.getId(), categoryFilter, pageable);
+        }
+        // Substring match on name and description in the same query, so only wholesaler products are
+        // ever searched and the cost does not grow with the retail catalog
+        String escaped = keyword.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return productRepository.findMarketplaceListingsMatching(buyer.getId(), categoryFilter,
+            "%" + escaped + "%", pageable);
+    }
+    
+    public FacetCounts getFacetCounts(String keyword, String category, Double minPrice, Double maxPrice, Boolean inStock) {
+        List<Long> candidateIds = keyword == null || keyword.isEmpty()
+            ? null
+            : searchCandidates(keyword);
+        return productFacetIndex.count(candidateIds, category, minPrice, maxPrice, inStock);
     }
     
     public List<String> getAllCategories() {
-        return productRepository.findAll().stream()
-            .map(Product::getCategory)
-            .distinct()
-            .sorted()
-            .collect(Collectors.toList());
+        return categoryRegistry.getCategories();
+    }
+    
+    // Categories are stored in one spelling per name, so filters can compare them exactly
+    public String canonicalCategory(String category) {
+        return categoryRegistry.canonicalName(category);
     }
     
+    
     public Product updateProduct(Product product) {
-        Product existing = getProductById(product.getId());
+        Product existing = loadProduct(product.getId());
         existing.setName(product.getName());
         existing.setDescription(product.getDescription());
-        existing.setCategory(product.getCategory());
+        existing.setCategory(canonicalCategory(product.getCategory()));
         existing.setPrice(product.getPrice());
-        existing.setStockQuantity(product.getStockQuantity());
         existing.setImageUrl(product.getImageUrl());
         existing.setAvailable(product.getAvailable());
         existing.setManufacturingCountry(product.getManufacturingCountry());
-        return productRepository.save(existing);
+        // Stock isn't part of the row update (see Product), so it is only written when the seller
+        // actually changed it, and then on its own. The form was filled from getProductById, so
+        // compare with the ledger's count when it has one rather than with the database's.
+        Integer stock = product.getStockQuantity();
+        Integer shown = inventoryLedger.isEnabled() ? inventoryLedger.peek(product.getId()) : null;
+        if (shown == null) {
+            shown = existing.getStockQuantity();
+        }
+        boolean stockEdited = stock != null && !stock.equals(shown);
+        Product saved = productRepository.save(existing);
+        if (stockEdited) {
+            if (inventoryLedger.isEnabled()) {
+                afterCommit(() -> inventoryLedger.set(saved.getId(), stock));
+            } else {
+                productRepository.setStock(saved.getId(), stock);
+            }
+            saved.setStockQuantity(stock);
+        }
+        reindexAfterCommit(saved);
+        return saved;
+    }
+    
+    // Brings the in-memory indexes up to date with products bulk-inserted outside JPA
+    @Transactional(readOnly = true)
+    public void indexImportedProducts(List<Long> productIds) {
+        for (int from = 0; from < productIds.size(); from += IMPORT_INDEX_CHUNK) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + IMPORT_INDEX_CHUNK, productIds.size()));
+            for (Product product : productRepository.findAllById(chunk)) {
+                catalogIndexes.forEach(index -> index.index(product));
+            }
+        }
     }
     
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        afterCommit(() -> {
+            inventoryLedger.forget(id);
+            catalogIndexes.forEach(index -> index.remove(id));
+        });
     }
     
     public void restockProduct(Long productId, Integer quantity) {
-        Product product = getProductById(productId);
-        product.setStockQuantity(product.getStockQuantity() + quantity);
-        productRepository.save(product);
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        if (inventoryLedger.isEnabled()) {
+            loadProduct(productId);
+            afterCommit(() -> inventoryLedger.add(productId, quantity));
+            return;
+        }
+        if (productRepository.incrementStock(productId, quantity) == 0) {
+            throw new RuntimeException("Product not found");
+        }
+        reindexAfterCommit(loadFreshProduct(productId));
     }
     
     public void reduceStock(Long productId, Integer quantity) {
-        Product product = getProductById(productId);
-        if (product.getStockQuantity() < quantity) {
+        reduceStock(Map.of(productId, quantity));
+    }
+    
+    // Takes stock for every line of an order at once. With the ledger, stock is reserved in memory
+    // and only marked for write-back once the order commits; a rollback hands it back. Without it,
+    // one batch of conditional UPDATEs, so concurrent checkouts can't both pass the stock check.
+    public void reduceStock(Map<Long, Integer> quantities) {
+        if (quantities.values().stream().anyMatch(quantity -> quantity == null || quantity <= 0)) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        if (inventoryLedger.isEnabled()) {
+            Map<Long, Integer> reserved = new HashMap<>();
+            try {
+                for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                    if (!inventoryLedger.reserve(line.getKey(), line.getValue())) {
+                        throw new RuntimeException("Insufficient stock");
+                    }
+                    reserved.put(line.getKey(), line.getValue());
+                }
+            } catch (RuntimeException e) {
+                // Hand back the earlier lines, whether a line was short or its product is gone
+                reserved.forEach(inventoryLedger::release);
+                throw e;
+            }
+            onCompletion(committed -> reserved.forEach((productId, quantity) -> {
+                if (committed) {
+                    inventoryLedger.commit(productId, quantity);
+                } else {
+                    inventoryLedger.release(productId, quantity);
+                }
+            }));
+            return;
+        }
+        List<Long> shortOfStock = productRepository.decrementStock(quantities);
+        if (!shortOfStock.isEmpty()) {
+            shortOfStock.forEach(this::loadProduct);
             throw new RuntimeException("Insufficient stock");
         }
-        product.setStockQuantity(product.getStockQuantity() - quantity);
-        productRepository.save(product);
+        // The persistence context still holds the old stock, so read the new counts back on this
+        // transaction's connection; a second transaction here could wait on a pool this one is holding
+        Map<Long, Integer> stock = new HashMap<>();
+        for (Object[] row : productRepository.findStockByIdIn(quantities.keySet())) {
+            stock.put((Long) row[0], (Integer) row[1]);
+        }
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            product.setStockQuantity(stock.get(product.getId()));
+            reindexAfterCommit(product);
+        }
+    }
+    
+    // Runs on the ledger's write-back thread
+    private void reindexProducts(Collection<Long> ids) {
+        for (Product product : productRepository.findAllById(ids)) {
+            catalogIndexes.forEach(index -> index.index(product));
+        }
+    }
+    
+    private Product loadProduct(Long id) {
+        return productRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
+    
+    private Product loadFreshProduct(Long id) {
+        return productRepository.findFreshById(id)
+            .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
+    
+    // Every exact keyword match, best first, falling back to fuzzy matches when the keyword finds
+    // nothing. Uncapped, since callers filter the ids before paging them.
+    private List<Long> searchCandidates(String keyword) {
+        List<Long> ids = productSearchIndex.search(keyword, Integer.MAX_VALUE);
+        return ids.isEmpty() ? productTrigramIndex.search(keyword, Integer.MAX_VALUE) : ids;
+    }
+    
+    private List<Product> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+    
+    private void reindexAfterCommit(Product product) {
+        afterCommit(() -> catalogIndexes.forEach(index -> index.index(product)));
+    }
+    
+    // In-memory indexes must only see committed data, so defer until the surrounding transaction commits
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    private void onCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            action.accept(true);
+        }
     }
 }
@@ -0,0 +1,375 @@
+package com.livemart.service;
+
+import com.livemart.model.Order;
+import com.livemart.model.OrderItem;
+import com.livemart.model.OrderStatus;
+import com.livemart.model.SellerSalesRollup;
+import com.livemart.model.User;
+import com.livemart.repository.SellerSalesRollupRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-seller order counts, units and revenue by status, for each day and for all time. Orders
+// apply their own deltas in the transaction that places them or changes their status, so a
+// dashboard reads a few rows instead of walking order_items. A periodic check compares the
+// all-time rows and the recent daily rows with order_items and rebuilds any seller that drifted,
+// in parallel partitions.
+@Service
+public class SalesRollupService {
+    
+    private static final String ALL_TIME = "*";
+    private static final double REVENUE_TOLERANCE = 0.01;
+    private static final String UNIQUE_VIOLATION = "23505";
+    
+    private static final String UPDATE_SQL =
+        "UPDATE seller_sales_rollups SET order_count = order_count + ?, units = units + ?, revenue = revenue + ? " +
+        "WHERE rollup_key = ?";
+    private static final String INSERT_SQL =
+        "INSERT INTO seller_sales_rollups (rollup_key, seller_id, sales_day, status, order_count, units, revenue) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String AGGREGATE_SQL =
+        "SELECT p.seller_id, CAST(o.created_at AS DATE), o.status, COUNT(DISTINCT o.id), " +
+        "SUM(i.quantity), SUM(i.price * i.quantity) " +
+        "FROM order_items i JOIN orders o ON o.id = i.order_id JOIN products p ON p.id = i.product_id ";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final SellerSalesRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int partitionSize;
+    private final int checkDays;
+    private final ForkJoinPool rebuildPool;
+    private final ScheduledExecutorService checker;
+    
+    private final LongAdder rebuiltSellers = new LongAdder();
+    private final LongAdder failedChecks = new LongAdder();
+    private volatile LocalDateTime lastCheckAt;
+    private volatile int lastDriftedSellers;
+    private volatile long lastRebuildMillis;
+    
+    public SalesRollupService(JdbcTemplate jdbcTemplate, SellerSalesRollupRepository rollupRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${livemart.sales-rollup.check-interval-minutes:60}") long checkIntervalMinutes,
+                              @Value("${livemart.sales-rollup.rebuild-parallelism:4}") int rebuildParallelism,
+                              @Value("${livemart.sales-rollup.partition-size:50}") int partitionSize,
+                              @Value("${livemart.sales-rollup.check-days:30}") int checkDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.partitionSize = partitionSize;
+        this.checkDays = Math.max(1, checkDays);
+        this.rebuildPool = new ForkJoinPool(rebuildParallelism);
+        this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sales-rollup-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The first check also backfills rollups for orders placed before they existed
+        checker.scheduleWithFixedDelay(this::checkQuietly, 30, checkIntervalMinutes * 60, TimeUnit.SECONDS);
+    }
+    
+    // Called at the end of the transaction that placed the order
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOrderPlaced(Order order) {
+        apply(order, null, order.getStatus());
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChange(Order order, OrderStatus from, OrderStatus to) {
+        if (from != to) {
+            apply(order, from, to);
+        }
+    }
+    
+    public SalesSummary getSummary(User seller) {
+        SalesSummary summary = new SalesSummary();
+        for (SellerSalesRollup rollup : rollupRepository.findBySellerIdAndDayIsNull(seller.getId())) {
+            summary.ordersByStatus.put(rollup.getStatus(), rollup.getOrderCount());
+            if (rollup.getStatus() != OrderStatus.CANCELLED) {
+                summary.orders += rollup.getOrderCount();
+                summary.units += rollup.getUnits();
+                summary.revenue += rollup.getRevenue();
+            }
+        }
+        for (SellerSalesRollup rollup : rollupRepository.findBySellerIdAndDay(seller.getId(), LocalDate.now())) {
+            if (rollup.getStatus() != OrderStatus.CANCELLED) {
+                summary.todayOrders += rollup.getOrderCount();
+                summary.todayRevenue += rollup.getRevenue();
+            }
+        }
+        return summary;
+    }
+    
+    // Rebuilds every seller whose rollups disagree with order_items; returns how many were rebuilt
+    public int checkAndRepair() {
+        Set<Long> drifted = findDriftedSellers();
+        lastCheckAt = LocalDateTime.now();
+        lastDriftedSellers = drifted.size();
+        if (!drifted.isEmpty()) {
+            rebuild(drifted);
+        }
+        return drifted.size();
+    }
+    
+    public void rebuild(Collection<Long> sellerIds) {
+        long start = System.currentTimeMillis();
+        rebuildPool.invoke(new RebuildTask(new ArrayList<>(new TreeSet<>(sellerIds))));
+        lastRebuildMillis = System.currentTimeMillis() - start;
+        rebuiltSellers.add(sellerIds.size());
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lastCheckAt", lastCheckAt);
+        stats.put("lastDriftedSellers", lastDriftedSellers);
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        stats.put("rebuiltSellers", rebuiltSellers.sum());
+        stats.put("failedChecks", failedChecks.sum());
+        return stats;
+    }
+    
+    private void apply(Order order, OrderStatus from, OrderStatus to) {
+        LocalDate day = order.getCreatedAt().toLocalDate();
+        Map<Long, Row> bySeller = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            User seller = item.getProduct().getSeller();
+            if (seller == null) {
+                continue;
+            }
+            Row totals = bySeller.computeIfAbsent(seller.getId(), id -> new Row(id, null, null));
+            totals.units += item.getQuantity();
+            totals.revenue += item.getPrice() * item.getQuantity();
+        }
+        // Rows are always updated in key order, so two orders touching the same rows cannot deadlock
+        SortedMap<String, Row> deltas = new TreeMap<>();
+        bySeller.forEach((sellerId, totals) -> {
+            for (LocalDate bucket : Arrays.asList(null, day)) {
+                if (from != null) {
+                    Row removed = new Row(sellerId, bucket, from);
+                    removed.add(-1, -totals.units, -totals.revenue);
+                    deltas.put(removed.key(), removed);
+                }
+                Row added = new Row(sellerId, bucket, to);
+                added.add(1, totals.units, totals.revenue);
+                deltas.put(added.key(), added);
+            }
+        });
+        deltas.values().forEach(this::increment);
+    }
+    
+    private void increment(Row delta) {
+        if (jdbcTemplate.update(UPDATE_SQL, delta.orders, delta.units, delta.revenue, delta.key()) > 0) {
+            return;
+        }
+        // First sale in this bucket. The insert runs under a savepoint so that losing a race with
+        // another order creating the same row does not fail this one.
+        Object[] args = new Row(delta.sellerId, delta.day, delta.status).insertArgs();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (int i = 0; i < args.length; i++) {
+                    statement.setObject(i + 1, args[i]);
+                }
+                statement.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                // Anything but a duplicate key means the row could not be created at all
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+            }
+            return null;
+        });
+        jdbcTemplate.update(UPDATE_SQL, delta.orders, delta.units, delta.revenue, delta.key());
+    }
+    
+    // Compares the all-time rows and the daily rows of the last checkDays days with order_items
+    private Set<Long> findDriftedSellers() {
+        LocalDate firstDay = LocalDate.now().minusDays(checkDays - 1);
+        Map<String, Row> expected = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT p.seller_id, o.status, COUNT(DISTINCT o.id), SUM(i.quantity), SUM(i.price * i.quantity) " +
+            "FROM order_items i JOIN orders o ON o.id = i.order_id JOIN products p ON p.id = i.product_id " +
+            "WHERE p.seller_id IS NOT NULL GROUP BY p.seller_id, o.status",
+            rs -> {
+                Row row = new Row(rs.getLong(1), null, OrderStatus.valueOf(rs.getString(2)));
+                row.add(rs.getLong(3), rs.getLong(4), rs.getDouble(5));
+                expected.put(row.key(), row);
+            });
+        jdbcTemplate.query(AGGREGATE_SQL + "WHERE p.seller_id IS NOT NULL AND o.created_at >= ? " +
+            "GROUP BY p.seller_id, CAST(o.created_at AS DATE), o.status", rs -> {
+                Row row = new Row(rs.getLong(1), rs.getDate(2).toLocalDate(), OrderStatus.valueOf(rs.getString(3)));
+                row.add(rs.getLong(4), rs.getLong(5), rs.getDouble(6));
+                expected.put(row.key(), row);
+            }, Timestamp.valueOf(firstDay.atStartOfDay()));
+        Map<String, Row> actual = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT seller_id, sales_day, status, order_count, units, revenue FROM seller_sales_rollups " +
+            "WHERE sales_day IS NULL OR sales_day >= ?",
+            rs -> {
+                Date day = rs.getDate(2);
+                Row row = new Row(rs.getLong(1), day != null ? day.toLocalDate() : null, OrderStatus.valueOf(rs.getString(3)));
+                row.add(rs.getLong(4), rs.getLong(5), rs.getDouble(6));
+                actual.put(row.key(), row);
+            }, Date.valueOf(firstDay));
+        Set<Long> drifted = new HashSet<>();
+        Set<String> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        for (String key : keys) {
+            Row want = expected.get(key);
+            Row have = actual.get(key);
+            // A missing row is the same as a row that has gone back to zero
+            if (want == null) {
+                if (!have.isZero()) {
+                    drifted.add(have.sellerId);
+                }
+            } else if (have == null ? !want.isZero() : !want.matches(have)) {
+                drifted.add(want.sellerId);
+            }
+        }
+        return drifted;
+    }
+    
+    // Recomputes the given sellers from order_items and replaces their rows
+    private void rebuildSellers(List<Long> sellerIds) {
+        String in = String.join(",", Collections.nCopies(sellerIds.size(), "?"));
+        Object[] ids = sellerIds.toArray();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Holding the all-time rows makes orders for these sellers wait until the rebuilt rows commit
+            jdbcTemplate.queryForList("SELECT rollup_key FROM seller_sales_rollups WHERE sales_day IS NULL " +
+                "AND seller_id IN (" + in + ") FOR UPDATE", String.class, ids);
+            List<Row> rows = new ArrayList<>();
+            Map<String, Row> allTime = new HashMap<>();
+            jdbcTemplate.query(AGGREGATE_SQL + "WHERE p.seller_id IN (" + in + ") " +
+                "GROUP BY p.seller_id, CAST(o.created_at AS DATE), o.status", rs -> {
+                    Row daily = new Row(rs.getLong(1), rs.getDate(2).toLocalDate(), OrderStatus.valueOf(rs.getString(3)));
+                    daily.add(rs.getLong(4), rs.getLong(5), rs.getDouble(6));
+                    rows.add(daily);
+                    allTime.computeIfAbsent(new Row(daily.sellerId, null, daily.status).key(),
+                        key -> new Row(daily.sellerId, null, daily.status)).add(daily.orders, daily.units, daily.revenue);
+                }, ids);
+            rows.addAll(allTime.values());
+            jdbcTemplate.update("DELETE FROM seller_sales_rollups WHERE seller_id IN (" + in + ")", ids);
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows.stream().map(Row::insertArgs).toList());
+        });
+    }
+    
+    private void checkQuietly() {
+        try {
+            int rebuilt = checkAndRepair();
+            if (rebuilt > 0) {
+                System.err.println("Sales rollups drifted for " + rebuilt + " seller(s); rebuilt in " + lastRebuildMillis + "ms");
+            }
+        } catch (Exception e) {
+            failedChecks.increment();
+            System.err.println("Sales rollup check failed: " + e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        checker.shutdownNow();
+        rebuildPool.shutdownNow();
+    }
+    
+    // Splits the sellers in half until a partition is small enough to rebuild in one transaction
+    private class RebuildTask extends RecursiveAction {
+        
+        private final List<Long> sellerIds;
+        
+        RebuildTask(List<Long> sellerIds) {
+            this.sellerIds = sellerIds;
+        }
+        
+        @Override
+        protected void compute() {
+            if (sellerIds.size() <= partitionSize) {
+                rebuildSellers(sellerIds);
+                return;
+            }
+            int middle = sellerIds.size() / 2;
+            invokeAll(new RebuildTask(sellerIds.subList(0, middle)),
+                new RebuildTask(sellerIds.subList(middle, sellerIds.size())));
+        }
+    }
+    
+    private static class Row {
+        
+        private final Long sellerId;
+        private final LocalDate day;
+        private final OrderStatus status;
+        private long orders;
+        private long units;
+        private double revenue;
+        
+        Row(Long sellerId, LocalDate day, OrderStatus status) {
+            this.sellerId = sellerId;
+            this.day = day;
+            this.status = status;
+        }
+        
+        void add(long orders, long units, double revenue) {
+            this.orders += orders;
+            this.units += units;
+            this.revenue += revenue;
+        }
+        
+        String key() {
+            return sellerId + ":" + (day != null ? day.toString() : ALL_TIME) + ":" + status;
+        }
+        
+        boolean isZero() {
+            return orders == 0 && units == 0 && Math.abs(revenue) < REVENUE_TOLERANCE;
+        }
+        
+        boolean matches(Row other) {
+            return orders == other.orders && units == other.units
+                && Math.abs(revenue - other.revenue) < REVENUE_TOLERANCE;
+        }
+        
+        Object[] insertArgs() {
+            return new Object[] { key(), sellerId, day != null ? Date.valueOf(day) : null, status.name(),
+                orders, units, revenue };
+        }
+    }
+    
+    public static class SalesSummary {
+        
+        private long orders;
+        private long units;
+        private double revenue;
+        private long todayOrders;
+        private double todayRevenue;
+        private final Map<OrderStatus, Long> ordersByStatus = new EnumMap<>(OrderStatus.class);
+        
+        // Orders, units and revenue leave out cancelled orders
+        public long getOrders() { return orders; }
+        
+        public long getUnits() { return units; }
+        
+        public double getRevenue() { return revenue; }
+        
+        public long getTodayOrders() { return todayOrders; }
+        
+        public double getTodayRevenue() { return todayRevenue; }
+        
+        public Map<OrderStatus, Long> getOrdersByStatus() { return ordersByStatus; }
+    }
+}
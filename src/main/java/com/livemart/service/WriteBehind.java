@@ -0,0 +1,92 @@
+package com.livemart.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Write-back for counters kept in memory: remembers which keys changed and hands them to write in
+// batches, from a background thread once started and from flush(). Keys whose write fails are
+// marked again and retried on the next flush.
+class WriteBehind<K> {
+    
+    private final Set<K> dirty = ConcurrentHashMap.newKeySet();
+    private final String threadName;
+    private final Consumer<List<K>> write;
+    private ScheduledExecutorService writer;
+    
+    WriteBehind(String threadName, Consumer<List<K>> write) {
+        this.threadName = threadName;
+        this.write = write;
+    }
+    
+    void start(long intervalMs) {
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flushQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    void markDirty(K key) {
+        dirty.add(key);
+    }
+    
+    boolean isDirty(K key) {
+        return dirty.contains(key);
+    }
+    
+    void forget(K key) {
+        dirty.remove(key);
+    }
+    
+    void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>();
+        for (Iterator<K> it = dirty.iterator(); it.hasNext(); ) {
+            // Unmarked before write reads the value, so a change made meanwhile marks it again
+            keys.add(it.next());
+            it.remove();
+        }
+        try {
+            write.accept(keys);
+        } catch (RuntimeException e) {
+            dirty.addAll(keys);
+            throw e;
+        }
+    }
+    
+    // Stops the background thread, then writes whatever is still pending
+    void shutdown() {
+        stop();
+        flushQuietly();
+    }
+    
+    // Stops the background thread, waiting for a write in progress to finish
+    void stop() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Write-back on " + threadName + " failed, will retry: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.livemart;
+
+import com.livemart.model.Product;
+import com.livemart.model.User;
+import com.livemart.model.UserRole;
+import com.livemart.repository.UserRepository;
+import com.livemart.service.ProductService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Saves the users and products a test needs, with every required column filled in
+public class TestData {
+    
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    
+    private final UserRepository userRepository;
+    private final ProductService productService;
+    
+    public TestData(UserRepository userRepository, ProductService productService) {
+        this.userRepository = userRepository;
+        this.productService = productService;
+    }
+    
+    public User user(UserRole role) {
+        int n = SEQUENCE.incrementAndGet();
+        User user = new User();
+        user.setEmail(role.name().toLowerCase() + n + "@test.com");
+        user.setPassword("not-used");
+        user.setFullName(role.name() + " " + n);
+        user.setPhone("9000000000");
+        user.setRole(role);
+        user.setCity("Hyderabad");
+        user.setPincode("500001");
+        user.setEnabled(true);
+        return userRepository.save(user);
+    }
+    
+    public Product product(User seller, int stock) {
+        int n = SEQUENCE.incrementAndGet();
+        Product product = new Product();
+        product.setName("Product " + n);
+        product.setDescription("Test product " + n);
+        product.setCategory("Groceries");
+        product.setPrice(10.0);
+        product.setStockQuantity(stock);
+        product.setSeller(seller);
+        product.setAvailable(true);
+        return productService.createProduct(product);
+    }
+}
@@ -0,0 +1,7 @@
+package com.livemart.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "livemart.inventory-ledger.enabled=false")
+class ConditionalUpdateOversellStressTest extends OversellStressTest {
+}
@@ -0,0 +1,76 @@
+package com.livemart.service;
+
+import com.livemart.TestData;
+import com.livemart.model.User;
+import com.livemart.model.UserRole;
+import com.livemart.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The background writer is slowed down so each test decides when bookings are written back
+@SpringBootTest(properties = "livemart.delivery-slots.flush-interval-ms=600000")
+class DeliverySlotServiceTest {
+    
+    @Autowired
+    private DeliverySlotService deliverySlotService;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void rollbackAfterFlushLeavesBookingsWritten() {
+        User seller = new TestData(userRepository, productService).user(UserRole.RETAILER);
+        List<Long> sellerIds = List.of(seller.getId());
+        LocalDate date = LocalDate.now().plusDays(2);
+        // An earlier order leaves the slot waiting for write-back
+        transactionTemplate.executeWithoutResult(status -> deliverySlotService.reserve(sellerIds, date, null));
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            deliverySlotService.reserve(sellerIds, date, null);
+            // On another thread, as the background writer would
+            CompletableFuture.runAsync(deliverySlotService::flush).join();
+            status.setRollbackOnly();
+        });
+        deliverySlotService.flush();
+        
+        assertEquals(1, booked(seller, date));
+    }
+    
+    @Test
+    void cancellationIsWrittenBack() {
+        User seller = new TestData(userRepository, productService).user(UserRole.RETAILER);
+        List<Long> sellerIds = List.of(seller.getId());
+        LocalDate date = LocalDate.now().plusDays(2);
+        transactionTemplate.executeWithoutResult(status -> deliverySlotService.reserve(sellerIds, date, null));
+        transactionTemplate.executeWithoutResult(status -> deliverySlotService.reserve(sellerIds, date, null));
+        deliverySlotService.flush();
+        
+        transactionTemplate.executeWithoutResult(status -> deliverySlotService.release(sellerIds, date, null));
+        deliverySlotService.flush();
+        
+        assertEquals(1, booked(seller, date));
+    }
+    
+    private Integer booked(User seller, LocalDate date) {
+        return jdbcTemplate.queryForObject("SELECT booked FROM delivery_slots WHERE slot_key = ?", Integer.class,
+            seller.getId() + ":" + date + ":*");
+    }
+}
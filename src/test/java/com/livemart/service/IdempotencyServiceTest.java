@@ -0,0 +1,52 @@
+package com.livemart.service;
+
+import com.livemart.TestData;
+import com.livemart.model.Order;
+import com.livemart.model.PaymentMethod;
+import com.livemart.model.Product;
+import com.livemart.model.User;
+import com.livemart.model.UserRole;
+import com.livemart.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class IdempotencyServiceTest {
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void oversizedClientKeyPlacesOneOrder() {
+        TestData data = new TestData(userRepository, productService);
+        User customer = data.user(UserRole.CUSTOMER);
+        Product product = data.product(data.user(UserRole.RETAILER), 10);
+        String clientKey = "k".repeat(1000);
+        
+        cartService.addToCart(customer, product.getId(), 1);
+        Order first = idempotencyService.placeOnce(clientKey, customer, key ->
+            orderService.createOrder(customer, PaymentMethod.CASH_ON_DELIVERY, null, LocalDate.now().plusDays(1), key));
+        Order retry = idempotencyService.placeOnce(clientKey, customer, key ->
+            orderService.createOrder(customer, PaymentMethod.CASH_ON_DELIVERY, null, LocalDate.now().plusDays(1), key));
+        
+        assertEquals(first.getId(), retry.getId());
+        assertEquals(9, productService.getProductById(product.getId()).getStockQuantity());
+    }
+}
@@ -0,0 +1,111 @@
+package com.livemart.service;
+
+import com.livemart.TestData;
+import com.livemart.model.Product;
+import com.livemart.model.User;
+import com.livemart.model.UserRole;
+import com.livemart.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// The background writer is slowed down so each test decides when stock is written back
+@SpringBootTest(properties = {
+    "livemart.inventory-ledger.enabled=true",
+    "livemart.inventory-ledger.flush-interval-ms=600000"
+})
+class InventoryLedgerTest {
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void rollbackAfterFlushLeavesDatabaseStock() {
+        Product product = product(10);
+        // An earlier order leaves the product waiting for write-back
+        transactionTemplate.executeWithoutResult(status -> productService.reduceStock(product.getId(), 1));
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.reduceStock(product.getId(), 4);
+            // On another thread, as the background writer would
+            CompletableFuture.runAsync(inventoryLedger::flush).join();
+            status.setRollbackOnly();
+        });
+        inventoryLedger.flush();
+        
+        assertEquals(9, inventoryLedger.peek(product.getId()));
+        assertEquals(9, databaseStock(product));
+    }
+    
+    @Test
+    void commitIsWrittenBack() {
+        Product product = product(10);
+        
+        transactionTemplate.executeWithoutResult(status -> productService.reduceStock(product.getId(), 4));
+        inventoryLedger.flush();
+        
+        assertEquals(6, inventoryLedger.peek(product.getId()));
+        assertEquals(6, databaseStock(product));
+    }
+    
+    @Test
+    void failedLineReleasesEarlierLines() {
+        Product product = product(10);
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(product.getId(), 3);
+        quantities.put(Long.MAX_VALUE, 1);
+        
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> transactionTemplate.executeWithoutResult(status -> productService.reduceStock(quantities)));
+        
+        assertEquals("Product not found", e.getMessage());
+        assertEquals(10, inventoryLedger.peek(product.getId()));
+    }
+    
+    @Test
+    void stockEditIsComparedWithTheLedger() {
+        Product product = product(10);
+        transactionTemplate.executeWithoutResult(status -> productService.reduceStock(product.getId(), 4));
+        
+        // The form shows 6 while the database still holds 10; setting it back to 10 is an edit
+        Product form = productService.getProductById(product.getId());
+        assertEquals(6, form.getStockQuantity());
+        form.setStockQuantity(10);
+        productService.updateProduct(form);
+        inventoryLedger.flush();
+        
+        assertEquals(10, inventoryLedger.peek(product.getId()));
+        assertEquals(10, databaseStock(product));
+    }
+    
+    private Product product(int stock) {
+        TestData data = new TestData(userRepository, productService);
+        User seller = data.user(UserRole.RETAILER);
+        return data.product(seller, stock);
+    }
+    
+    private Integer databaseStock(Product product) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, product.getId());
+    }
+}
@@ -0,0 +1,120 @@
+package com.livemart.service;
+
+import com.livemart.TestData;
+import com.livemart.model.PaymentMethod;
+import com.livemart.model.User;
+import com.livemart.model.UserRole;
+import com.livemart.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Insert throughput of createOrder with one statement per row, as IDENTITY ids forced, against the
+// JDBC batches that pooled sequence ids allow. Both runs share one context; only the session's
+// batch size differs. The outbox dispatcher is slowed down so its queries don't count.
+@SpringBootTest(properties = "livemart.outbox.poll-interval-ms=600000")
+class OrderInsertBenchmarkTest {
+    
+    private static final int LINES = 20;
+    private static final int WARMUP_ORDERS = 20;
+    private static final int ORDERS = 100;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Test
+    void batchedInsertsNeedFarFewerStatements() {
+        TestData data = new TestData(userRepository, productService);
+        User customer = data.user(UserRole.CUSTOMER);
+        User seller = data.user(UserRole.RETAILER);
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            productIds.add(data.product(seller, 1_000_000).getId());
+        }
+        
+        run(customer, productIds, WARMUP_ORDERS, 1);
+        run(customer, productIds, WARMUP_ORDERS, null);
+        Result unbatched = run(customer, productIds, ORDERS, 1);
+        Result batched = run(customer, productIds, ORDERS, null);
+        
+        System.out.println("createOrder with " + LINES + " lines, " + ORDERS + " orders:");
+        System.out.println("  one statement per row: " + unbatched);
+        System.out.println("  batched:               " + batched);
+        
+        assertTrue(unbatched.statementsPerOrder() >= LINES,
+            "Unbatched orders should insert each line on its own: " + unbatched);
+        assertTrue(batched.statementsPerOrder() * 2 < unbatched.statementsPerOrder(),
+            "Batched orders should need well under half the statements: " + batched + " vs " + unbatched);
+    }
+    
+    // batchSize null keeps the configured hibernate.jdbc.batch_size, 1 turns batching off
+    private Result run(User customer, List<Long> productIds, int orders, Integer batchSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long nanos = 0;
+        long statements = 0;
+        long inserts = 0;
+        for (int i = 0; i < orders; i++) {
+            productIds.forEach(productId -> cartService.addToCart(customer, productId, 1));
+            long statementsBefore = statistics.getPrepareStatementCount();
+            long insertsBefore = statistics.getEntityInsertCount();
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> {
+                if (batchSize != null) {
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                }
+                orderService.createOrder(customer, PaymentMethod.CASH_ON_DELIVERY, null, LocalDate.now().plusDays(1));
+            });
+            nanos += System.nanoTime() - start;
+            statements += statistics.getPrepareStatementCount() - statementsBefore;
+            inserts += statistics.getEntityInsertCount() - insertsBefore;
+        }
+        return new Result(orders, nanos, statements, inserts);
+    }
+    
+    private record Result(int orders, long nanos, long statements, long inserts) {
+        
+        double statementsPerOrder() {
+            return (double) statements / orders;
+        }
+        
+        double insertsPerSecond() {
+            return inserts / (nanos / 1_000_000_000.0);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%.0f rows inserted/s, %.0f orders/s, %.1f statements per order",
+                insertsPerSecond(), orders / (nanos / 1_000_000_000.0), statementsPerOrder());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.livemart.service;
+
+import com.livemart.TestData;
+import com.livemart.model.Order;
+import com.livemart.model.PaymentMethod;
+import com.livemart.model.Product;
+import com.livemart.model.User;
+import com.livemart.model.UserRole;
+import com.livemart.repository.OrderSummary;
+import com.livemart.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The order list and detail views must cost the same number of statements however many orders and
+// lines they show. The background writers are slowed down so their queries don't count.
+@SpringBootTest(properties = {
+    "livemart.outbox.poll-interval-ms=600000",
+    "livemart.inventory-ledger.flush-interval-ms=600000"
+})
+class OrderSummaryQueryCountTest {
+    
+    private static final int LINES = 3;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Test
+    void orderListIsTwoStatementsAtAnySize() {
+        TestData data = new TestData(userRepository, productService);
+        List<Product> products = products(data);
+        User fewOrders = data.user(UserRole.CUSTOMER);
+        User manyOrders = data.user(UserRole.CUSTOMER);
+        placeOrders(fewOrders, products, 2);
+        placeOrders(manyOrders, products, 25);
+        
+        List<OrderSummary> few = new ArrayList<>();
+        long fewStatements = statements(() -> few.addAll(orderService.getUserOrderSummaries(fewOrders)));
+        List<OrderSummary> many = new ArrayList<>();
+        long manyStatements = statements(() -> many.addAll(orderService.getUserOrderSummaries(manyOrders)));
+        
+        assertEquals(2, few.size());
+        assertEquals(25, many.size());
+        many.forEach(summary -> assertEquals(LINES, summary.getOrderItems().size()));
+        assertEquals(2, fewStatements, "One query for the orders and one for their lines");
+        assertEquals(2, manyStatements, "One query for the orders and one for their lines");
+    }
+    
+    @Test
+    void orderDetailIsTwoStatements() {
+        TestData data = new TestData(userRepository, productService);
+        User customer = data.user(UserRole.CUSTOMER);
+        Order order = placeOrders(customer, products(data), 1).get(0);
+        
+        List<OrderSummary> detail = new ArrayList<>();
+        long statements = statements(() -> detail.add(orderService.getOrderSummary(order.getId())));
+        
+        assertEquals(LINES, detail.get(0).getOrderItems().size());
+        assertEquals(2, statements, "One query for the order and one for its lines");
+    }
+    
+    private List<Product> products(TestData data) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            // A seller per line, so each line's product and seller would be a separate lazy load
+            products.add(data.product(data.user(UserRole.RETAILER), 1000));
+        }
+        return products;
+    }
+    
+    private List<Order> placeOrders(User customer, List<Product> products, int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            products.forEach(product -> cartService.addToCart(customer, product.getId(), 1));
+            orders.add(orderService.createOrder(customer, PaymentMethod.CASH_ON_DELIVERY, null, LocalDate.now().plusDays(1)));
+        }
+        return orders;
+    }
+    
+    private long statements(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        action.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
@@ -0,0 +1,99 @@
+package com.livemart.service;
+
+import com.livemart.TestData;
+import com.livemart.model.Product;
+import com.livemart.model.User;
+import com.livemart.model.UserRole;
+import com.livemart.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Many buyers ordering one product at once until it sells out. Every unit sold must be paid for by
+// stock, and the stock left must match what the orders took. Run with and without the inventory
+// ledger by the subclasses.
+abstract class OversellStressTest {
+    
+    private static final int THREADS = 32;
+    private static final int STOCK = 500;
+    private static final int QUANTITY = 3;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void concurrentOrdersNeverOversell() throws Exception {
+        TestData data = new TestData(userRepository, productService);
+        User seller = data.user(UserRole.WHOLESALER);
+        Product product = data.product(seller, STOCK);
+        List<User> buyers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            buyers.add(data.user(UserRole.RETAILER));
+        }
+        
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> buyerRuns = new ArrayList<>();
+        for (User buyer : buyers) {
+            buyerRuns.add(pool.submit(() -> {
+                start.await();
+                // Keep ordering until the stock check turns this buyer away
+                for (int attempt = 0; attempt < STOCK; attempt++) {
+                    try {
+                        orderService.createB2BOrder(buyer, productService.getProductById(product.getId()), QUANTITY, null);
+                        placed.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if (!"Insufficient stock".equals(e.getMessage())) {
+                            throw e;
+                        }
+                        soldOut.incrementAndGet();
+                        return null;
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> run : buyerRuns) {
+            run.get();
+        }
+        pool.shutdown();
+        inventoryLedger.flush();
+        
+        int sold = placed.get() * QUANTITY;
+        Integer ordered = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(SUM(quantity), 0) FROM order_items WHERE product_id = ?", Integer.class, product.getId());
+        Integer left = jdbcTemplate.queryForObject(
+            "SELECT stock_quantity FROM products WHERE id = ?", Integer.class, product.getId());
+        
+        assertEquals(THREADS, soldOut.get(), "Every buyer should end on a sold-out product");
+        assertEquals(sold, ordered, "Order lines should match the orders that succeeded");
+        assertEquals(STOCK - sold, left, "Stock left should be the initial stock minus what was sold");
+        assertTrue(left >= 0 && left < QUANTITY, "Stock should sell out without going negative, left " + left);
+    }
+}